@@ -15,17 +15,30 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+import logic.AntlrParser;
+import logic.BatchSimplifier;
 import logic.Formula;
-import logic.FormulaLexer;
-import logic.FormulaParser;
-import logic.Generator;
+import logic.ParallelParser;
+import logic.PrattParser;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.Scanner;
-
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Simplifies a formula.
@@ -37,10 +50,84 @@ public class Simplify {
 	
 	private static final String PROMPT = "This app simplifies a formula.\n\nFormulas are defined by the following grammar:\n  f ::= true | false | label | (f) | f - r | f + r | O[f] | f && f | f || f\nwhere label consists of one or more lowercase letters and r is a real number.\n\nProvide a formula: "; 
 	
+	private static final String USAGE = "Usage: java Simplify [--batch [file] [--threads n] [--parser p] | --file [file]]\n  --batch [file]  simplifies the formulas in the given file (or standard input if the file\n                  is omitted or -), one formula per line; the file may be gzip compressed\n  --threads n     simplifies the formulas using n threads (default: 1)\n  --parser p      parses the formulas with the pratt (default) or antlr parser\n  --file [file]   simplifies the single formula in the given file (or standard input if the\n                  file is omitted or -), which may span several lines and may be gzip compressed";
+
+	/**
+	 * Size of the buffers used to read files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Prompts user to enter a formula and prints its simplification.  With the option
+	 * --batch, the formulas of a file, one per line, are simplified and their 
+	 * simplifications are printed, one per line.  With the option --threads,
+	 * the formulas are simplified by the given number of threads.  With the option --parser,
+	 * the formulas are parsed by either the hand-written parser (pratt) or the parser
+	 * generated by ANTLR (antlr).  With the option --file, the single formula of a file,
+	 * which may be too large to be read into a string, is simplified and its simplification
+	 * is printed.
+	 * 
+	 * @param args the command line arguments
+	 * @throws IOException if the formulas cannot be read or the simplifications cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			interactive();
+		} else if (args[0].equals("--batch")) {
+			String name = "-";
+			int threads = 1;
+			String parser = "pratt";
+			int index = 1;
+			if (index < args.length && !args[index].startsWith("--")) {
+				name = args[index];
+				index++;
+			}
+			while (index + 1 < args.length) {
+				if (args[index].equals("--threads")) {
+					try {
+						threads = Integer.parseInt(args[index + 1]);
+					} catch (NumberFormatException e) {
+						threads = 0;
+					}
+					if (threads <= 0) {
+						System.err.println("Invalid number of threads: " + args[index + 1]);
+						usage();
+					}
+				} else if (args[index].equals("--parser")) {
+					parser = args[index + 1];
+					if (!parser.equals("pratt") && !parser.equals("antlr")) {
+						System.err.println("Invalid parser: " + parser);
+						usage();
+					}
+				} else {
+					usage();
+				}
+				index += 2;
+			}
+			if (index == args.length) {
+				batch(name, threads, parser.equals("antlr"));
+			} else {
+				usage();
+			}
+		} else if (args[0].equals("--file") && args.length <= 2) {
+			file(args.length == 2 ? args[1] : "-");
+		} else {
+			usage();
+		}
+	}
+
+	/**
+	 * Prints how to use the app and exits.
+	 */
+	private static void usage() {
+		System.err.println(USAGE);
+		System.exit(1);
+	}
+
 	/**
 	 * Prompts user to enter a formula and prints its simplification. 
 	 */
-	public static void main(String[] args) {
+	private static void interactive() {
 		// prompt the user
 		System.out.print(PROMPT);
 		
@@ -49,9 +136,13 @@ public class Simplify {
 		String description = input.nextLine();
 		
 		// parse the formula
-		FormulaParser parser = new FormulaParser(new CommonTokenStream(new FormulaLexer(CharStreams.fromString(description))));
-		ParseTree tree = parser.formula();
-		Formula formula = new Generator().visit(tree);
+		Formula formula;
+		try {
+			formula = new AntlrParser().parse(description);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
 
 		// simplify the formula
 		Formula simplified = formula.simplify();
@@ -59,4 +150,84 @@ public class Simplify {
 		// print the simplified formula
 		System.out.print("\nThe formula " + formula + "\nis simplified to " + simplified);
 	}
+
+	/**
+	 * Simplifies the formulas of the file with the given name, one per line, and prints
+	 * their simplifications, one per line.  An empty line is printed for an empty line.
+	 * 
+	 * @param name the name of the file, or - for standard input
+	 * @param threads the number of threads
+	 * @param antlr whether the formulas are parsed by the parser generated by ANTLR
+	 * @throws IOException if the formulas cannot be read or the simplifications cannot be written
+	 */
+	private static void batch(String name, int threads, boolean antlr) throws IOException {
+		Supplier<Function<String, Formula>> parsers;
+		if (antlr) {
+			parsers = () -> new AntlrParser()::parse;
+		} else {
+			parsers = () -> new PrattParser(true)::parse;
+		}
+		try (BufferedReader input = open(name);
+				Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE);
+				BatchSimplifier simplifier = new BatchSimplifier(threads, parsers)) {
+			simplifier.simplify(input, output);
+		}
+	}
+
+	/**
+	 * Simplifies the formula of the file with the given name and prints its simplification.
+	 * The file is memory-mapped and parsed in parallel, unless it is standard input or gzip
+	 * compressed, in which case it is read incrementally.  In either case, the text of the
+	 * formula is never held in memory as a whole.  The formula is simplified while it is
+	 * parsed, so that its unsimplified abstract syntax tree is not held in memory either.
+	 * 
+	 * @param name the name of the file, or - for standard input
+	 * @throws IOException if the formula cannot be read
+	 */
+	private static void file(String name) throws IOException {
+		Formula formula;
+		InputStream input = openStream(name);
+		if (name.equals("-") || input instanceof GZIPInputStream) {
+			try (ReadableByteChannel channel = Channels.newChannel(input)) {
+				formula = new PrattParser(true).parse(channel);
+			}
+		} else {
+			input.close();
+			formula = new ParallelParser(ForkJoinPool.commonPool(), ParallelParser.DEFAULT_THRESHOLD, true).parse(Paths.get(name));
+		}
+		System.out.println(formula);
+	}
+
+	/**
+	 * Opens the file with the given name for reading.  If the file is gzip compressed,
+	 * it is decompressed while it is read.
+	 * 
+	 * @param name the name of the file, or - for standard input
+	 * @return a reader of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static BufferedReader open(String name) throws IOException {
+		return new BufferedReader(new InputStreamReader(openStream(name), StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Opens the file with the given name for reading.  If the file is gzip compressed,
+	 * it is decompressed while it is read.
+	 * 
+	 * @param name the name of the file, or - for standard input
+	 * @return an input stream of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static InputStream openStream(String name) throws IOException {
+		InputStream input = new BufferedInputStream(name.equals("-") ? System.in : new FileInputStream(name), BUFFER_SIZE);
+		// check for the magic number of gzip
+		input.mark(2);
+		int first = input.read();
+		int second = input.read();
+		input.reset();
+		if (first == 0x1f && second == 0x8b) {
+			input = new GZIPInputStream(input, BUFFER_SIZE);
+		}
+		return input;
+	}
 }
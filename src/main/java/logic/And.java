@@ -18,19 +18,24 @@
 package logic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
- * The conjunction formula.
+ * The conjunction formula.  A conjunction has two or more operands.
  *
  * @author Amgad Rady
  * @author Franck van Breugel
  */
 public class And extends Formula {
-	private Formula left;
-	private Formula right;
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 7;
+
+	private final Formula[] operands;
 
 	/**
 	 * Initializes this formula with the given left and right formula.
@@ -50,121 +55,185 @@ public class And extends Formula {
 	 * @param simplified whether this formula is simplified
 	 */
 	public And(Formula left, Formula right, boolean simplified) {
-		super(simplified);
-		this.left = left;
-		this.right = right;
+		this(new Formula[] { left, right }, simplified);
+	}
+
+	/**
+	 * Initializes this formula with the given operands.
+	 * 
+	 * @param operands the operands of this conjunction
+	 * @param simplified whether this formula is simplified
+	 * @pre. operands.length &gt;= 2
+	 */
+	public And(Formula[] operands, boolean simplified) {
+		super(simplified, KIND, 0, operands);
+		this.operands = new Formula[operands.length];
+		for (int i = 0; i < operands.length; i++) {
+			this.operands[i] = Interner.intern(operands[i]);
+		}
+		// f && g lies in [min(l, l'), min(u, u')] if f lies in [l, u] and g in [l', u']
+		this.lowerBound = this.operands[0].lowerBound;
+		this.upperBound = this.operands[0].upperBound;
+		for (Formula operand : this.operands) {
+			this.lowerBound = Math.min(this.lowerBound, operand.lowerBound);
+			this.upperBound = Math.min(this.upperBound, operand.upperBound);
+		}
 	}
 
 	/**
-	 * Returns the left subformula.
+	 * Returns the left subformula.  If this conjunction has more than two operands,
+	 * the left subformula is the conjunction of all operands but the last one.
 	 *
 	 * @return the left subformula
 	 */
 	public Formula getLeft() {
-		return this.left;
+		if (this.operands.length == 2) {
+			return this.operands[0];
+		} else {
+			return new And(Arrays.copyOf(this.operands, this.operands.length - 1), this.simplified);
+		}
 	}
 	
 	/**
-	 * Returns the right subformula.
+	 * Returns the right subformula, that is, the last operand.
 	 *
 	 * @return the right subformula
 	 */
 	public Formula getRight() {
-		return this.right;
+		return this.operands[this.operands.length - 1];
+	}
+
+	/**
+	 * Returns the operands of this conjunction.
+	 *
+	 * @return the operands of this conjunction
+	 */
+	public Formula[] getOperands() {
+		return this.operands.clone();
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
-		Formula simplifiedLeft = this.left.simplified ? this.left : this.left.simplify();
-		Formula simplifiedRight = this.right.simplified ? this.right : this.right.simplify();
-		
-		// false && g = false
-		if (simplifiedLeft instanceof False) { 
-			return simplifiedLeft;
-		}
-		
-		// f && false = false
-		if (simplifiedRight instanceof False) {
-			return simplifiedRight;
-		}
-		
-		// true && g = g
-		if (simplifiedLeft instanceof True) {
-			return simplifiedRight;
-		}
-		
-		// f && true = f
-		if (simplifiedRight instanceof True) {
-			return simplifiedLeft;
-		}
-		
-		// if f <= g then f && g = f
-		if (simplifiedLeft.smallerOrEqual(simplifiedRight) || simplifiedRight.greaterOrEqual(simplifiedLeft)) {
-			return simplifiedLeft;
-		}
-		
-		// if g <= f then f && g = g
-		if (simplifiedRight.smallerOrEqual(simplifiedLeft) || simplifiedLeft.greaterOrEqual(simplifiedRight)) {
-			return simplifiedRight;
-		}
-		
-		return new And(simplifiedLeft, simplifiedRight, true);
+	public int getArity() {
+		return this.operands.length;
 	}
-	
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
-		return this.left.greaterOrEqual(other) && this.right.greaterOrEqual(other);
+	public Formula getSubformula(int index) {
+		if (index >= 0 && index < this.operands.length) {
+			return this.operands[index];
+		} else {
+			return super.getSubformula(index);
+		}
 	}
-	
+
 	/**
-	 * {@inheritDoc}
+	 * Returns the operands of the chain of unsimplified conjunctions rooted at this
+	 * formula, so that the chain is simplified as a whole.
+	 * 
+	 * @return the operands of the chain of conjunctions rooted at this formula
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
-		return this.left.smallerOrEqual(other) || this.right.smallerOrEqual(other);
+	Formula[] getSimplificationOperands() {
+		return Operands.flatten(this, And.class);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toLaTeX() {
-		return "(" + this.left.toLaTeX() + " \\wedge " + this.right.toLaTeX() + ")";
+	protected Formula computeSimplification() {
+		Formula[] operands = this.getSimplificationOperands();
+		for (int i = 0; i < operands.length; i++) {
+			operands[i] = operands[i].simplify();
+		}
+		return rewrite(operands);
+	}
+
+	/**
+	 * Returns a simplification of the conjunction of the given simplified formulas.
+	 * 
+	 * @param simplifiedLeft a simplified formula
+	 * @param simplifiedRight a simplified formula
+	 * @return a simplification of the conjunction of the given formulas
+	 */
+	static Formula rewrite(Formula simplifiedLeft, Formula simplifiedRight) {
+		return rewrite(new Formula[] { simplifiedLeft, simplifiedRight });
 	}
 
+	/**
+	 * Returns a simplification of the conjunction of the given simplified formulas.
+	 * Nested conjunctions are flattened, and duplicate and subsumed operands are removed;
+	 * see {@link Operands#rewrite(boolean, Formula[])}.
+	 * 
+	 * @param simplifiedOperands simplified formulas
+	 * @return a simplification of the conjunction of the given formulas
+	 */
+	static Formula rewrite(Formula[] simplifiedOperands) {
+		return Operands.rewrite(true, simplifiedOperands);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean equals(Object object) {		
-		if (object != null && this.getClass() == object.getClass()) {
-			And other = (And) object;
-			return this.left.equals(other.left) && this.right.equals(other.right);
-		} else {
-			return false;
+	protected Goal smallerOrEqualGoal(Formula other) {
+		// if f <= h or g <= h then f && g <= h
+		Goal[] goals = new Goal[this.operands.length];
+		for (int i = 0; i < goals.length; i++) {
+			goals[i] = Goal.smallerOrEqual(this.operands[i], other);
 		}
+		return Goal.or(goals);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Goal greaterOrEqualGoal(Formula other) {
+		// if f >= h and g >= h then f && g >= h
+		Goal[] goals = new Goal[this.operands.length];
+		for (int i = 0; i < goals.length; i++) {
+			goals[i] = Goal.greaterOrEqual(this.operands[i], other);
+		}
+		return Goal.and(goals);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int hashCode() {
-		final int PRIME = 31;
-		return this.left.hashCode() + PRIME * this.right.hashCode();
+	protected Order computeCompare(Formula other) {
+		if (this.getDepth() > RECURSION_DEPTH || other.getDepth() > RECURSION_DEPTH) {
+			return super.computeCompare(other);
+		}
+		// f && g <= h if f <= h or g <= h, and f && g >= h if f >= h and g >= h
+		boolean smallerOrEqual = false;
+		boolean greaterOrEqual = true;
+		for (Formula operand : this.operands) {
+			Order order = operand.compare(other);
+			smallerOrEqual = smallerOrEqual || order.isSmallerOrEqual();
+			greaterOrEqual = greaterOrEqual && order.isGreaterOrEqual();
+		}
+		return this.completeCompare(other, smallerOrEqual, greaterOrEqual);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "(" + this.left + " && " + this.right + ")";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		if (position == 0) {
+			builder.append("(");
+		} else if (position < this.operands.length) {
+			builder.append(latex ? " \\wedge " : " && ");
+		} else {
+			builder.append(")");
+		}
 	}
 }
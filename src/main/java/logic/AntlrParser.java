@@ -0,0 +1,133 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * Parses formulas by means of the lexer and parser generated by ANTLR from the
+ * grammar Formula.g4.  The lexer, token stream, parser and generator are reused
+ * for all formulas, and all parsers share the DFA cache of the generated parser.
+ *
+ * Each formula is first parsed with SLL prediction, which is faster, and an error
+ * strategy that gives up at the first syntax error.  Only if that fails, the formula
+ * is parsed again with full LL prediction.  Since SLL prediction fails only if
+ * full LL prediction fails or the input is ambiguous, the result is the same as that
+ * of parsing with full LL prediction.  As {@link PrattParser}, this parser does not
+ * recover from syntax errors: it throws an {@link IllegalArgumentException} with the
+ * position of the first error, so that the parsers can be used interchangeably.
+ *
+ * The throughput of the two stages has not been measured against parsing with
+ * full LL prediction only.
+ *
+ * A parser can be reused, but it is not thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public class AntlrParser {
+	private final FormulaLexer lexer;
+	private final CommonTokenStream tokens;
+	private final FormulaParser parser;
+	private final Generator generator;
+
+	/**
+	 * Initializes this parser.
+	 */
+	public AntlrParser() {
+		this.lexer = new FormulaLexer(CharStreams.fromString(""));
+		this.tokens = new CommonTokenStream(this.lexer);
+		this.parser = new FormulaParser(this.tokens);
+		this.generator = new Generator();
+		this.lexer.removeErrorListeners();
+		this.lexer.addErrorListener(new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String message, RecognitionException e) {
+				throw new IllegalArgumentException("Unexpected character at position " + ((Lexer) recognizer)._tokenStartCharIndex);
+			}
+		});
+		this.parser.setErrorHandler(new BailErrorStrategy());
+		this.parser.removeErrorListeners();
+	}
+
+	/**
+	 * Parses the given formula.
+	 *
+	 * @param description a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IllegalArgumentException if the description is not a formula
+	 */
+	public Formula parse(String description) {
+		this.lexer.setInputStream(CharStreams.fromString(description));
+		this.tokens.setTokenSource(this.lexer);
+		this.parser.setTokenStream(this.tokens);
+
+		// first stage: SLL prediction
+		ParseTree tree = this.parse(PredictionMode.SLL);
+		if (tree == null) {
+			// second stage: full LL prediction
+			this.tokens.seek(0);
+			this.parser.reset();
+			tree = this.parse(PredictionMode.LL);
+		}
+		return this.generator.visit(tree);
+	}
+
+	/**
+	 * Parses the tokens with the given prediction mode and gives up at the first syntax
+	 * error.  The tokens have to form a formula as a whole.  A syntax error is only
+	 * reported for full LL prediction.
+	 *
+	 * @param mode a prediction mode
+	 * @return the parse tree, or null if SLL prediction fails
+	 * @throws IllegalArgumentException if the tokens do not form a formula
+	 */
+	private ParseTree parse(PredictionMode mode) {
+		this.parser.getInterpreter().setPredictionMode(mode);
+		Token offending;
+		try {
+			ParseTree tree = this.parser.formula();
+			if (this.tokens.LA(1) == Token.EOF) {
+				return tree;
+			}
+			// the grammar does not require the formula to end the input
+			offending = this.tokens.LT(1);
+		} catch (ParseCancellationException e) {
+			offending = e.getCause() instanceof RecognitionException ? ((RecognitionException) e.getCause()).getOffendingToken() : null;
+			if (offending == null) {
+				offending = this.tokens.LT(1);
+			}
+		}
+		if (mode == PredictionMode.SLL) {
+			return null;
+		} else if (offending.getType() == Token.EOF) {
+			throw new IllegalArgumentException("Unexpected end of input at position " + offending.getStartIndex());
+		} else {
+			throw new IllegalArgumentException("Unexpected '" + offending.getText() + "' at position " + offending.getStartIndex());
+		}
+	}
+}
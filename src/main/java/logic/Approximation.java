@@ -0,0 +1,155 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+/**
+ * The result of {@link Formula#simplify(double)}: a simplified formula whose value
+ * differs from the value of the original formula by at most the error bound, in
+ * every state.
+ *
+ * The approximation is built bottom-up.  Since the shifts, conjunction, disjunction
+ * and next operator are nonexpansive, that is, they change their value by at most the
+ * largest change of the values of their subformulas, the error of a formula is at most
+ * the largest error of its subformulas plus the error introduced at the formula itself.
+ * Errors are only introduced as long as the result stays within the tolerance.
+ *
+ * @author Franck van Breugel
+ */
+public final class Approximation {
+	private final Formula formula;
+	private final long error;
+
+	/**
+	 * Initializes this result.
+	 *
+	 * @param formula the approximating formula
+	 * @param error the error bound in units; see {@link Shift}
+	 */
+	Approximation(Formula formula, long error) {
+		this.formula = formula;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the approximating formula.
+	 *
+	 * @return the approximating formula
+	 */
+	public Formula getFormula() {
+		return this.formula;
+	}
+
+	/**
+	 * Returns a bound on the difference between the values of the approximating
+	 * formula and the original formula.
+	 *
+	 * @return the error bound
+	 */
+	public double getError() {
+		return Shift.toDouble(this.error);
+	}
+
+	/**
+	 * Returns the approximation of the given simplified formula, given the approximations
+	 * of its subformulas.  The formula is rebuilt from the approximations of its
+	 * subformulas.  A shift whose amount fits in the remaining tolerance is dropped, since
+	 * the values of f + q and f - q differ by at most q from the value of f.  Otherwise,
+	 * its amount is rounded to the coarsest power of ten that the remaining tolerance
+	 * allows, so that nearly equal shifts become equal.  Finally, a formula whose bounds
+	 * are close enough is replaced by the constant in the middle of its bounds.
+	 *
+	 * @param formula a simplified formula
+	 * @param operands the approximations of the subformulas of the given formula
+	 * @param tolerance the largest error allowed, in units
+	 * @pre. the errors of the given approximations are at most the tolerance
+	 * @return the approximation of the given formula
+	 */
+	static Approximation of(Formula formula, Approximation[] operands, long tolerance) {
+		if (!(formula instanceof Label || formula instanceof True || formula instanceof False || formula instanceof Plus
+				|| formula instanceof Minus || formula instanceof Next || formula instanceof And || formula instanceof Or)) {
+			// other formulas cannot be rebuilt
+			return new Approximation(formula, 0);
+		}
+		long error = 0;
+		boolean changed = false;
+		Formula[] approximations = new Formula[operands.length];
+		for (int i = 0; i < operands.length; i++) {
+			approximations[i] = operands[i].formula;
+			error = Math.max(error, operands[i].error);
+			changed = changed || approximations[i] != formula.getSubformula(i);
+		}
+
+		Formula approximation;
+		if (formula instanceof Plus || formula instanceof Minus) {
+			long shift = formula instanceof Plus ? ((Plus) formula).getUnits() : ((Minus) formula).getUnits();
+			if (shift <= tolerance - error) {
+				// |(f + q) - f| <= q and |(f - q) - f| <= q
+				approximation = approximations[0];
+				error += shift;
+			} else {
+				long rounded = round(shift, tolerance - error);
+				error += Math.abs(rounded - shift);
+				if (!changed && rounded == shift) {
+					approximation = formula;
+				} else if (formula instanceof Plus) {
+					approximation = Plus.rewrite(approximations[0], rounded);
+				} else {
+					approximation = Minus.rewrite(approximations[0], rounded);
+				}
+			}
+		} else if (!changed) {
+			approximation = formula;
+		} else if (formula instanceof Next) {
+			approximation = Next.rewrite(approximations[0]);
+		} else if (formula instanceof And) {
+			approximation = And.rewrite(approximations);
+		} else {
+			approximation = Or.rewrite(approximations);
+		}
+
+		long width = approximation.upperBound - approximation.lowerBound;
+		if (width > 0 && width - width / 2 <= tolerance - error) {
+			// the value lies within half the width of the middle
+			approximation = ShiftChain.constant(approximation.lowerBound + width / 2);
+			error += width - width / 2;
+		}
+		return new Approximation(Interner.intern(approximation), error);
+	}
+
+	/**
+	 * Returns the given shift amount rounded half up to a multiple of the largest power
+	 * of ten whose half is at most the given tolerance.
+	 */
+	private static long round(long shift, long tolerance) {
+		long grid = 1;
+		while (grid < Shift.ONE && 5 * grid <= tolerance) {
+			grid *= 10;
+		}
+		return (shift + grid / 2) / grid * grid;
+	}
+
+	/**
+	 * Returns a string representation of this result.
+	 *
+	 * @return a string representation of this result
+	 */
+	@Override
+	public String toString() {
+		return this.formula + " (error at most " + Shift.toString(this.error) + ")";
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The characters of a buffer of ASCII bytes, such as a memory-mapped file.
+ * The characters are read by means of absolute gets, so that a sequence can be
+ * read by several threads at the same time.
+ *
+ * @author Franck van Breugel
+ */
+final class AsciiSequence implements CharSequence {
+	private final ByteBuffer buffer;
+	private final int start;
+	private final int length;
+
+	/**
+	 * Initializes this sequence with the bytes of the given buffer up to its limit.
+	 *
+	 * @param buffer a buffer of ASCII bytes
+	 */
+	AsciiSequence(ByteBuffer buffer) {
+		this(buffer, 0, buffer.limit());
+	}
+
+	private AsciiSequence(ByteBuffer buffer, int start, int length) {
+		this.buffer = buffer;
+		this.start = start;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return this.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (this.buffer.get(this.start + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new AsciiSequence(this.buffer, this.start + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		byte[] bytes = new byte[this.length];
+		for (int i = 0; i < this.length; i++) {
+			bytes[i] = this.buffer.get(this.start + i);
+		}
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Simplifies a stream of formulas, one per line, on a pool of worker threads.
+ * The simplifications are written in the order in which the formulas are read.
+ * At most a bounded number of formulas are in progress at any time, so that
+ * the reading of formulas does not run ahead of their simplification.
+ *
+ * @author Franck van Breugel
+ */
+public class BatchSimplifier implements AutoCloseable {
+	/**
+	 * The number of formulas per thread that may be in progress.
+	 */
+	private static final int WINDOW_PER_THREAD = 4;
+
+	private final int threads;
+	private final ThreadLocal<Function<String, Formula>> parser;
+	private final ExecutorService executor;
+
+	/**
+	 * Initializes this simplifier with the given number of threads.  Each thread
+	 * parses formulas with its own parser, obtained from the given supplier.  A parser
+	 * throws an {@link IllegalArgumentException} if a line is not a formula, as
+	 * {@link PrattParser} and {@link AntlrParser} do.
+	 * 
+	 * @param threads the number of threads
+	 * @param parsers supplies a parser for each thread
+	 * @pre. threads > 0
+	 */
+	public BatchSimplifier(int threads, Supplier<? extends Function<String, Formula>> parsers) {
+		this.threads = threads;
+		this.parser = ThreadLocal.withInitial(parsers);
+		this.executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "simplifier");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Parses and simplifies the given formula.  If the formula cannot be parsed, 
+	 * the error is reported on standard error, together with the given line number.
+	 * 
+	 * @param line the number of the line of the formula
+	 * @param description a formula
+	 * @return the simplification of the formula, or the empty string if the description 
+	 * is blank or cannot be parsed
+	 */
+	private String simplify(long line, String description) {
+		if (description.isBlank()) {
+			return "";
+		} else {
+			Formula formula;
+			try {
+				formula = this.parser.get().apply(description);
+			} catch (IllegalArgumentException e) {
+				System.err.println("Line " + line + ": " + e.getMessage());
+				return "";
+			}
+			return formula.simplify().toString();
+		}
+	}
+
+	/**
+	 * Simplifies the formulas read from the given input, one per line, and writes 
+	 * their simplifications to the given output, one per line.  An empty line is 
+	 * written for an empty line and for a line that cannot be parsed, so that the 
+	 * output stays aligned with the input.
+	 * 
+	 * @param input the input
+	 * @param output the output
+	 * @throws IOException if the formulas cannot be read or the simplifications cannot be written
+	 */
+	public void simplify(BufferedReader input, Writer output) throws IOException {
+		if (this.executor == null) {
+			long line = 0;
+			String description;
+			while ((description = input.readLine()) != null) {
+				line++;
+				output.write(this.simplify(line, description));
+				output.write('\n');
+			}
+		} else {
+			final int window = WINDOW_PER_THREAD * this.threads;
+			Queue<Future<String>> pending = new ArrayDeque<Future<String>>(window);
+			long line = 0;
+			String description;
+			while ((description = input.readLine()) != null) {
+				line++;
+				final long number = line;
+				final String formula = description;
+				pending.add(this.executor.submit(() -> this.simplify(number, formula)));
+				if (pending.size() == window) {
+					write(pending.remove(), output);
+				}
+			}
+			while (!pending.isEmpty()) {
+				write(pending.remove(), output);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the given simplification and writes it to the given output.
+	 */
+	private static void write(Future<String> simplification, Writer output) throws IOException {
+		try {
+			output.write(simplification.get());
+			output.write('\n');
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while simplifying", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	/**
+	 * Shuts down the threads of this simplifier.
+	 */
+	@Override
+	public void close() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results of comparing formulas.  The cache is keyed
+ * by the kind of comparison and the fingerprints of the compared formulas.
+ * It is direct-mapped: a new result replaces the result that is stored in
+ * the same slot.  This class is thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public final class ComparisonCache {
+	private ComparisonCache() {}
+
+	/**
+	 * The comparison {@link Formula#smallerOrEqual(Formula)}.
+	 */
+	static final int SMALLER_OR_EQUAL = 0;
+
+	/**
+	 * The comparison {@link Formula#greaterOrEqual(Formula)}.
+	 */
+	static final int GREATER_OR_EQUAL = 1;
+
+	/**
+	 * The comparison {@link Formula#compare(Formula)}.
+	 */
+	static final int COMPARE = 2;
+
+	/**
+	 * The result of a lookup of a comparison that is not in the cache.
+	 */
+	static final int ABSENT = -1;
+
+	/**
+	 * Default capacity of the cache.
+	 */
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * An entry of the cache.  Since all its attributes are final, an entry
+	 * can be shared among threads without synchronization.
+	 */
+	private static final class Entry {
+		private final int comparison;
+		private final long firstHigh;
+		private final long firstLow;
+		private final long secondHigh;
+		private final long secondLow;
+		private final int result;
+
+		private Entry(int comparison, Formula first, Formula second, int result) {
+			this.comparison = comparison;
+			this.firstHigh = first.fingerprintHigh;
+			this.firstLow = first.fingerprintLow;
+			this.secondHigh = second.fingerprintHigh;
+			this.secondLow = second.fingerprintLow;
+			this.result = result;
+		}
+
+		private boolean matches(int comparison, Formula first, Formula second) {
+			return this.comparison == comparison
+					&& this.firstHigh == first.fingerprintHigh && this.firstLow == first.fingerprintLow
+					&& this.secondHigh == second.fingerprintHigh && this.secondLow == second.fingerprintLow;
+		}
+	}
+
+	private static volatile Entry[] table = new Entry[DEFAULT_CAPACITY];
+
+	private static final LongAdder HITS = new LongAdder();
+	private static final LongAdder MISSES = new LongAdder();
+
+	/**
+	 * Returns the slot of the given comparison of the given formulas in the given table.
+	 */
+	private static int slot(Entry[] table, int comparison, Formula first, Formula second) {
+		long hash = first.fingerprintLow ^ Long.rotateLeft(second.fingerprintHigh, 29) ^ comparison;
+		return (int) (hash ^ (hash >>> 32)) & (table.length - 1);
+	}
+
+	/**
+	 * Returns the cached result of the given comparison of the given formulas.
+	 *
+	 * @param comparison the comparison
+	 * @param first the first formula
+	 * @param second the second formula
+	 * @return the cached result, or {@link #ABSENT} if the result is not cached
+	 */
+	static int lookup(int comparison, Formula first, Formula second) {
+		Entry[] table = ComparisonCache.table;
+		Entry entry = table[slot(table, comparison, first, second)];
+		if (entry != null && entry.matches(comparison, first, second)) {
+			HITS.increment();
+			return entry.result;
+		} else {
+			MISSES.increment();
+			return ABSENT;
+		}
+	}
+
+	/**
+	 * Caches the given result of the given comparison of the given formulas.
+	 *
+	 * @param comparison the comparison
+	 * @param first the first formula
+	 * @param second the second formula
+	 * @param result the result of the comparison
+	 */
+	static void store(int comparison, Formula first, Formula second, int result) {
+		Entry[] table = ComparisonCache.table;
+		table[slot(table, comparison, first, second)] = new Entry(comparison, first, second, result);
+	}
+
+	/**
+	 * Sets the capacity of the cache and clears the cache.  The capacity is rounded
+	 * up to a power of two.
+	 *
+	 * @param capacity the maximum number of cached comparisons
+	 * @pre. capacity > 0
+	 */
+	public static void setCapacity(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		table = new Entry[Math.min(size, 1 << 30)];
+	}
+
+	/**
+	 * Returns the capacity of the cache.
+	 *
+	 * @return the maximum number of cached comparisons
+	 */
+	public static int getCapacity() {
+		return table.length;
+	}
+
+	/**
+	 * Clears the cache and resets the number of hits and misses.
+	 */
+	public static void clear() {
+		table = new Entry[table.length];
+		HITS.reset();
+		MISSES.reset();
+	}
+
+	/**
+	 * Returns the number of comparisons that were found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public static long getHits() {
+		return HITS.sum();
+	}
+
+	/**
+	 * Returns the number of comparisons that were not found in the cache.
+	 *
+	 * @return the number of misses
+	 */
+	public static long getMisses() {
+		return MISSES.sum();
+	}
+}
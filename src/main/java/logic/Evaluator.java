@@ -0,0 +1,188 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluates formulas in a labelled Markov chain.  The value of a formula is computed
+ * for all states at once, bottom-up: each distinct subformula is evaluated once, in
+ * post-order by means of an explicit stack, into an array with a value for each state.
+ * The array of a subformula is reused as soon as all formulas that contain it have been
+ * evaluated, so that the number of arrays in use is bounded by the number of subformulas
+ * that are evaluated but still needed, rather than by the size of the formula.
+ *
+ * An evaluator is not thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public class Evaluator {
+	private final LabelledMarkovChain chain;
+
+	/**
+	 * Initializes this evaluator for the given chain.
+	 *
+	 * @param chain a labelled Markov chain
+	 */
+	public Evaluator(LabelledMarkovChain chain) {
+		this.chain = chain;
+	}
+
+	/**
+	 * Returns the value of the given formula in each state of the chain of this evaluator.
+	 *
+	 * @param formula a formula
+	 * @pre. formula != null
+	 * @return an array containing the value of the given formula in each state
+	 * @throws IllegalArgumentException if the formula contains a formula of an unknown class
+	 */
+	public double[] evaluate(Formula formula) {
+		Map<Formula, Integer> uses = this.countUses(formula);
+		Map<Formula, double[]> values = new HashMap<Formula, double[]>();
+		Deque<double[]> free = new ArrayDeque<double[]>();
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(formula);
+		while (!pending.isEmpty()) {
+			Formula current = pending.peek();
+			if (values.containsKey(current)) {
+				// shared subformula that has been evaluated already
+				pending.pop();
+			} else {
+				boolean ready = true;
+				for (int i = 0; i < current.getArity(); i++) {
+					Formula subformula = current.getSubformula(i);
+					if (!values.containsKey(subformula)) {
+						pending.push(subformula);
+						ready = false;
+					}
+				}
+				if (ready) {
+					pending.pop();
+					// the array of the first subformula is overwritten if it is no longer needed
+					boolean inPlace = current.getArity() > 0 && !(current instanceof Next) && uses.get(current.getSubformula(0)) == 1;
+					double[] result = inPlace ? values.remove(current.getSubformula(0)) : this.allocate(free);
+					this.evaluate(current, values, result);
+					values.put(current, result);
+					for (int i = 0; i < current.getArity(); i++) {
+						Formula subformula = current.getSubformula(i);
+						int remaining = uses.merge(subformula, -1, Integer::sum);
+						if (remaining == 0 && !(inPlace && i == 0)) {
+							free.push(values.remove(subformula));
+						}
+					}
+				}
+			}
+		}
+		return values.get(formula);
+	}
+
+	/**
+	 * Returns for each distinct subformula of the given formula the number of its
+	 * occurrences as a subformula of the distinct subformulas.
+	 */
+	private Map<Formula, Integer> countUses(Formula formula) {
+		Map<Formula, Integer> uses = new HashMap<Formula, Integer>();
+		uses.put(formula, 0);
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(formula);
+		while (!pending.isEmpty()) {
+			Formula current = pending.pop();
+			for (int i = 0; i < current.getArity(); i++) {
+				Formula subformula = current.getSubformula(i);
+				if (uses.merge(subformula, 1, Integer::sum) == 1) {
+					// first occurrence
+					pending.push(subformula);
+				}
+			}
+		}
+		return uses;
+	}
+
+	/**
+	 * Returns an array with an element for each state, reusing a free one if any.
+	 */
+	private double[] allocate(Deque<double[]> free) {
+		return free.isEmpty() ? new double[this.chain.getNumberOfStates()] : free.pop();
+	}
+
+	/**
+	 * Stores the values of the given formula in the given result, given the values of its
+	 * subformulas.  If the result is the array of the first subformula, it is updated in place.
+	 */
+	private void evaluate(Formula formula, Map<Formula, double[]> values, double[] result) {
+		int states = result.length;
+		if (formula instanceof True) {
+			Arrays.fill(result, 1);
+		} else if (formula instanceof False) {
+			Arrays.fill(result, 0);
+		} else if (formula instanceof Label) {
+			this.chain.label(((Label) formula).getLabel(), result);
+		} else if (formula instanceof Next) {
+			// [[O f]](s) = sum of P(s, t) [[f]](t)
+			this.chain.next(values.get(formula.getSubformula(0)), result);
+		} else if (formula instanceof Plus) {
+			// [[f + q]](s) = min(1, [[f]](s) + q)
+			double[] operand = this.operand(formula, 0, values, result);
+			double shift = ((Plus) formula).getShift();
+			for (int state = 0; state < states; state++) {
+				result[state] = Math.min(1, operand[state] + shift);
+			}
+		} else if (formula instanceof Minus) {
+			// [[f - q]](s) = max(0, [[f]](s) - q)
+			double[] operand = this.operand(formula, 0, values, result);
+			double shift = ((Minus) formula).getShift();
+			for (int state = 0; state < states; state++) {
+				result[state] = Math.max(0, operand[state] - shift);
+			}
+		} else if (formula instanceof And || formula instanceof Or) {
+			// [[f && g]](s) = min([[f]](s), [[g]](s)) and [[f || g]](s) = max([[f]](s), [[g]](s))
+			boolean conjunctive = formula instanceof And;
+			double[] first = this.operand(formula, 0, values, result);
+			if (first != result) {
+				System.arraycopy(first, 0, result, 0, states);
+			}
+			for (int i = 1; i < formula.getArity(); i++) {
+				double[] operand = values.get(formula.getSubformula(i));
+				if (conjunctive) {
+					for (int state = 0; state < states; state++) {
+						result[state] = Math.min(result[state], operand[state]);
+					}
+				} else {
+					for (int state = 0; state < states; state++) {
+						result[state] = Math.max(result[state], operand[state]);
+					}
+				}
+			}
+		} else {
+			throw new IllegalArgumentException("Formula of " + formula.getClass() + " cannot be evaluated");
+		}
+	}
+
+	/**
+	 * Returns the values of the subformula of the given formula with the given index,
+	 * which are in the given result if it is updated in place.
+	 */
+	private double[] operand(Formula formula, int index, Map<Formula, double[]> values, double[] result) {
+		double[] operand = values.get(formula.getSubformula(index));
+		return operand == null ? result : operand;
+	}
+}
@@ -24,19 +24,24 @@ package logic;
  * @author Franck van Breugel
  */
 public class False extends Formula {
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 2;
 
 	/**
 	 * Initializes this formula.
 	 */
 	public False() {
-		super(true);
+		super(true, KIND, 0, null, null);
+		this.upperBound = 0;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
+	protected Formula computeSimplification() {
 		return this;
 	}
 
@@ -44,45 +49,23 @@ public class False extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
-		return true;
+	protected Goal smallerOrEqualGoal(Formula other) {
+		return Goal.TRUE;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
-		return other instanceof False;
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public String toLaTeX() {
-		return "\\mathrm{false}";
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public boolean equals(Object object) {
-		return object != null && object instanceof False;
+	protected Goal greaterOrEqualGoal(Formula other) {
+		return Goal.of(other instanceof False);
 	}
 
-	/**
-	 * {@inheritDoc}
-	 */
-	public int hashCode() {
-		return 1;
-	}
-	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "false";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		builder.append(latex ? "\\mathrm{false}" : "false");
 	}
 }
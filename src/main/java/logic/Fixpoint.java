@@ -0,0 +1,82 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+/**
+ * The result of {@link Formula#simplifyToFixpoint()}: the simplified formula, the
+ * number of passes, and the number of nodes replaced after the first pass.
+ *
+ * @author Franck van Breugel
+ */
+public final class Fixpoint {
+	private final Formula formula;
+	private final int passes;
+	private final long revisited;
+
+	/**
+	 * Initializes this result.
+	 *
+	 * @param formula the simplified formula
+	 * @param passes the number of passes
+	 * @param revisited the number of nodes replaced after the first pass
+	 */
+	Fixpoint(Formula formula, int passes, long revisited) {
+		this.formula = formula;
+		this.passes = passes;
+		this.revisited = revisited;
+	}
+
+	/**
+	 * Returns the simplified formula, to which no rule applies anymore.
+	 *
+	 * @return the simplified formula
+	 */
+	public Formula getFormula() {
+		return this.formula;
+	}
+
+	/**
+	 * Returns the number of passes that changed the formula, including the initial
+	 * simplification.  The confirming pass, which changes nothing, is not counted.
+	 *
+	 * @return the number of passes
+	 */
+	public int getPasses() {
+		return this.passes;
+	}
+
+	/**
+	 * Returns the number of nodes that were replaced by a smaller formula after the
+	 * initial simplification.
+	 *
+	 * @return the number of nodes revisited
+	 */
+	public long getRevisited() {
+		return this.revisited;
+	}
+
+	/**
+	 * Returns a string representation of this result.
+	 *
+	 * @return a string representation of this result
+	 */
+	@Override
+	public String toString() {
+		return this.formula + " (" + this.passes + " passes, " + this.revisited + " nodes revisited)";
+	}
+}
@@ -17,6 +17,10 @@
 
 package logic;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -26,87 +30,644 @@ import java.util.Random;
  * @author Franck van Breugel
  */
 public abstract class Formula {
-	protected boolean simplified;
+	protected volatile boolean simplified;
 
 	/**
-	 * Desired accuracy.
+	 * The simplification of this formula, or null if it has not been computed yet.
+	 */
+	private volatile Formula simplification;
+
+	/**
+	 * The signature of this formula, or null if it has not been computed yet.
+	 */
+	private volatile Signature signature;
+
+	/**
+	 * Whether this formula is the canonical representative of its syntactic equivalence class.
+	 * 
+	 * @see Interner
+	 */
+	volatile boolean interned;
+
+	/**
+	 * The high and low 64 bits of the 128-bit structural fingerprint of this formula.
+	 * Syntactically equivalent formulas have the same fingerprint.
+	 */
+	final long fingerprintHigh;
+	final long fingerprintLow;
+
+	/**
+	 * The number of nodes of the syntax tree of this formula, at most {@code Integer.MAX_VALUE}.
+	 */
+	private final int size;
+
+	/**
+	 * The depth of the syntax tree of this formula.
+	 */
+	private final int depth;
+
+	/**
+	 * The least and the largest value that this formula may have in any state, in units;
+	 * see {@link Shift}.  The bounds are [0, 1], unless the constructor of the subclass
+	 * narrows them.
+	 */
+	long lowerBound;
+	long upperBound;
+
+	/**
+	 * Desired accuracy.  Shift amounts are represented exactly as multiples of it;
+	 * see {@link Shift}.
 	 */
 	public static final double ACCURACY = 1E-12;
-	
+
 	/**
-	 * Initializes this formula.
+	 * Formulas of at most this depth are simplified recursively.  Deeper formulas
+	 * are simplified by means of an explicit stack.
 	 */
-	public Formula() {
-		this.simplified = false;
+	static final int RECURSION_DEPTH = 256;
+
+	/**
+	 * Initializes this formula.  The fingerprint, size and depth of this formula are
+	 * computed from the given kind, payload and subformulas.
+	 * 
+	 * @param simplified whether this formula is simplified
+	 * @param kind the kind of formula; different subclasses use different kinds
+	 * @param payload the data stored in the node, such as a label or shift
+	 * @param left the first subformula, or null if there is none
+	 * @param right the second subformula, or null if there is none
+	 */
+	protected Formula(boolean simplified, long kind, long payload, Formula left, Formula right) {
+		this(simplified, kind, payload, left == null ? new Formula[0] : right == null ? new Formula[] { left } : new Formula[] { left, right });
 	}
-	
+
 	/**
-	 * Initializes this formula.
+	 * Initializes this formula.  The fingerprint, size and depth of this formula are
+	 * computed from the given kind, payload and subformulas.
 	 * 
 	 * @param simplified whether this formula is simplified
+	 * @param kind the kind of formula; different subclasses use different kinds
+	 * @param payload the data stored in the node, such as a label or shift
+	 * @param subformulas the subformulas
 	 */
-	public Formula(boolean simplified) {
+	protected Formula(boolean simplified, long kind, long payload, Formula[] subformulas) {
 		this.simplified = simplified;
+		long high = mix(kind * 0x9E3779B97F4A7C15L ^ payload);
+		long low = mix(kind * 0xC2B2AE3D27D4EB4FL + mix(payload ^ 0x165667B19E3779F9L));
+		long size = 1;
+		int depth = 0;
+		for (Formula subformula : subformulas) {
+			high = mix(high * 31 + subformula.fingerprintHigh);
+			low = mix(low * 37 + subformula.fingerprintLow);
+			size += subformula.size;
+			depth = Math.max(depth, subformula.depth);
+		}
+		this.fingerprintHigh = high;
+		this.fingerprintLow = low;
+		this.size = (int) Math.min(size, Integer.MAX_VALUE);
+		this.depth = depth + 1;
+		this.lowerBound = 0;
+		this.upperBound = Shift.ONE;
+	}
+
+	/**
+	 * Returns the number of nodes of the syntax tree of this formula.  If this number
+	 * exceeds {@code Integer.MAX_VALUE}, then {@code Integer.MAX_VALUE} is returned.
+	 * 
+	 * @return the number of nodes of the syntax tree of this formula
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the depth of the syntax tree of this formula.
+	 * 
+	 * @return the depth of the syntax tree of this formula
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the least value that this formula may have in any state.
+	 * 
+	 * @return a lower bound of the value of this formula
+	 */
+	public double getLowerBound() {
+		return Shift.toDouble(this.lowerBound);
+	}
+
+	/**
+	 * Returns the largest value that this formula may have in any state.
+	 * 
+	 * @return an upper bound of the value of this formula
+	 */
+	public double getUpperBound() {
+		return Shift.toDouble(this.upperBound);
+	}
+
+	/**
+	 * Tests whether this formula has the same value in every state, according to its bounds.
+	 * 
+	 * @return true if the bounds of this formula coincide, false otherwise
+	 */
+	boolean isConstant() {
+		return this.upperBound == this.lowerBound;
+	}
+
+	/**
+	 * Tests whether the bounds of this formula and the given formula show that this formula
+	 * is smaller than or equal to the given formula, that is, whether the largest value of
+	 * this formula is at most the least value of the given formula.  Only bounds that differ
+	 * from 0 and 1 are taken into account; true and false have rules of their own.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return true if this formula is smaller than or equal to the given formula by their bounds
+	 */
+	final boolean boundedBy(Formula other) {
+		return this.upperBound < Shift.ONE && other.lowerBound > 0 && this.upperBound <= other.lowerBound;
+	}
+
+	/**
+	 * Returns the number of subformulas of this formula.
+	 * 
+	 * @return the number of subformulas of this formula
+	 */
+	public int getArity() {
+		return 0;
+	}
+
+	/**
+	 * Returns the subformula of this formula with the given index.
+	 * 
+	 * @param index the index of the subformula
+	 * @pre. index in [0, getArity())
+	 * @return the subformula of this formula with the given index
+	 * @throws IndexOutOfBoundsException if this formula has no subformula with the given index
+	 */
+	public Formula getSubformula(int index) {
+		throw new IndexOutOfBoundsException("Formula has no subformula " + index);
+	}
+
+	/**
+	 * Tests whether this formula and the given formula have the same fingerprint.
+	 * If they do not, then the formulas are not syntactically equivalent.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return true if this formula and the given formula have the same fingerprint,
+	 * false otherwise
+	 */
+	protected final boolean sameFingerprint(Formula other) {
+		return this.fingerprintHigh == other.fingerprintHigh && this.fingerprintLow == other.fingerprintLow;
+	}
+
+	/**
+	 * Returns a 64-bit hash of the given string.
+	 * 
+	 * @param string a string
+	 * @return a 64-bit hash of the given string
+	 */
+	static long hash(String string) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < string.length(); i++) {
+			hash = (hash ^ string.charAt(i)) * 0x100000001B3L;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Mixes the bits of the given value (the finalizer of MurmurHash3).
+	 * 
+	 * @param value a value
+	 * @return the mixed value
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return value;
 	}
 	
 	/**
 	 * Returns a simplification of this formula that is semantically equivalent to this formula.
+	 * The simplification is computed only once and is interned.  Simplifications are also
+	 * cached in the {@link SimplificationCache} so that they can be reused for syntactically
+	 * equivalent formulas that are created later.
 	 *
 	 * @return a simplification of this formula
 	 */
-	public abstract Formula simplify();
+	public Formula simplify() {
+		Formula simplification = this.lookUpSimplification();
+		if (simplification == null) {
+			if (this.depth <= RECURSION_DEPTH) {
+				simplification = this.storeSimplification(this.computeSimplification());
+			} else {
+				simplification = this.simplifyIteratively();
+			}
+		}
+		return simplification;
+	}
 
 	/**
-	 * Returns a LaTeX representation of this formula.
+	 * Simplifies the subformulas of this formula in post-order by means of an explicit
+	 * stack, so that {@link #computeSimplification()} only encounters subformulas whose
+	 * simplification is already known.
+	 * 
+	 * @return the simplification of this formula
+	 */
+	private Formula simplifyIteratively() {
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			Formula formula = pending.peek();
+			if (formula.simplified || formula.simplification != null) {
+				// shared subformula that has been simplified already
+				pending.pop();
+			} else {
+				boolean ready = true;
+				for (Formula subformula : formula.getSimplificationOperands()) {
+					if (subformula.lookUpSimplification() == null) {
+						pending.push(subformula);
+						ready = false;
+					}
+				}
+				if (ready) {
+					pending.pop();
+					formula.storeSimplification(formula.computeSimplification());
+				}
+			}
+		}
+		return this.simplification;
+	}
+
+	/**
+	 * Simplifies this formula until no rule applies anymore.  Since the simplification
+	 * of a simplified formula is the formula itself, a single {@link #simplify()}
+	 * reaches the fixpoint.  To confirm this, the rules are reapplied once to the root
+	 * of the result.  Should that yield a smaller formula, the formula is simplified
+	 * again.  Nothing is recorded in the formulas, which are shared by all threads,
+	 * so this method is thread-safe.
+	 * 
+	 * @return the simplified formula, together with the number of passes and the number
+	 * of nodes replaced after the first pass
+	 */
+	public Fixpoint simplifyToFixpoint() {
+		Formula current = this.simplify();
+		int passes = 1;
+		long revisited = 0;
+		while (true) {
+			Formula confirmed = Interner.intern(current.computeSimplification());
+			if (confirmed == current || confirmed.getSize() >= current.getSize()) {
+				return new Fixpoint(current, passes, revisited);
+			}
+			current = confirmed.simplify();
+			passes++;
+			revisited++;
+		}
+	}
+
+	/**
+	 * Returns a simplification of this formula whose value differs from the value of this
+	 * formula by at most the given tolerance, in every state.  Starting from the exact
+	 * simplification, shifts with small amounts are dropped, the amounts of the other
+	 * shifts are rounded, and subformulas with close bounds are replaced by constants,
+	 * as long as the accumulated error stays within the tolerance; see {@link Approximation}.
+	 * The nodes are visited in post-order by means of an explicit stack.
+	 * 
+	 * @param epsilon the tolerance
+	 * @pre. epsilon &gt;= 0
+	 * @return the approximating formula, together with a bound on its error
+	 */
+	public Approximation simplify(double epsilon) {
+		long tolerance = Math.max(0, Shift.of(epsilon));
+		Formula exact = this.simplify();
+		Map<Formula, Approximation> approximations = new IdentityHashMap<Formula, Approximation>();
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(exact);
+		while (!pending.isEmpty()) {
+			Formula formula = pending.peek();
+			if (approximations.containsKey(formula)) {
+				// shared subformula that has been approximated already
+				pending.pop();
+			} else {
+				boolean ready = true;
+				for (int i = 0; i < formula.getArity(); i++) {
+					Formula subformula = formula.getSubformula(i);
+					if (!approximations.containsKey(subformula)) {
+						pending.push(subformula);
+						ready = false;
+					}
+				}
+				if (ready) {
+					pending.pop();
+					Approximation[] operands = new Approximation[formula.getArity()];
+					for (int i = 0; i < operands.length; i++) {
+						operands[i] = approximations.get(formula.getSubformula(i));
+					}
+					approximations.put(formula, Approximation.of(formula, operands, tolerance));
+				}
+			}
+		}
+		return approximations.get(exact);
+	}
+
+	/**
+	 * Returns the formulas that {@link #computeSimplification()} simplifies.  By default,
+	 * these are the subformulas of this formula.
+	 * 
+	 * @return the formulas whose simplifications the simplification of this formula is built from
+	 */
+	Formula[] getSimplificationOperands() {
+		Formula[] operands = new Formula[this.getArity()];
+		for (int i = 0; i < operands.length; i++) {
+			operands[i] = this.getSubformula(i);
+		}
+		return operands;
+	}
+
+	/**
+	 * Returns the signature of this formula, which over-approximates the formulas to which
+	 * this formula may be related.  The signatures of the subformulas are computed first,
+	 * in post-order by means of an explicit stack, and are kept.
+	 * 
+	 * @return the signature of this formula
+	 */
+	Signature getSignature() {
+		if (this.signature == null) {
+			Deque<Formula> pending = new ArrayDeque<Formula>();
+			pending.push(this);
+			while (!pending.isEmpty()) {
+				Formula formula = pending.peek();
+				if (formula.signature != null) {
+					// shared subformula whose signature has been computed already
+					pending.pop();
+				} else {
+					boolean ready = true;
+					for (int i = 0; i < formula.getArity(); i++) {
+						Formula subformula = formula.getSubformula(i);
+						if (subformula.signature == null) {
+							pending.push(subformula);
+							ready = false;
+						}
+					}
+					if (ready) {
+						pending.pop();
+						formula.signature = Signature.of(formula);
+					}
+				}
+			}
+		}
+		return this.signature;
+	}
+
+	/**
+	 * Returns the simplification of this formula if it is already known.
+	 * 
+	 * @return the simplification of this formula, or null if it is not known
+	 */
+	Formula lookUpSimplification() {
+		if (this.simplified) {
+			return this;
+		}
+		Formula simplification = this.simplification;
+		if (simplification == null) {
+			simplification = SimplificationCache.lookup(this);
+			if (simplification != null) {
+				this.simplification = simplification;
+			}
+		}
+		return simplification;
+	}
+
+	/**
+	 * Records the given formula as the simplification of this formula.
+	 * 
+	 * @param simplification a simplification of this formula
+	 * @return the interned simplification
+	 */
+	Formula storeSimplification(Formula simplification) {
+		simplification = Interner.intern(simplification);
+		SimplificationCache.store(this, simplification);
+		this.simplification = simplification;
+		return simplification;
+	}
+
+	/**
+	 * Computes a simplification of this formula that is semantically equivalent to this formula.
+	 * Simplifications of subformulas should be obtained by means of {@link #simplify()}.
 	 *
-	 * @return a LaTeX representation of this formula
+	 * @return a simplification of this formula
 	 */
-	public abstract String toLaTeX();
-	
+	protected abstract Formula computeSimplification();
+
 	/**
 	 * Tests whether this formula is smaller than or equal to the other given formula.  
 	 * If the method returns true, then this formula is smaller than or equal to the other given formula.
 	 * Even if the method returns false, then formula may be smaller than or equal to the other given formula.
 	 * 
+	 * The results are cached in the {@link ComparisonCache}.
+	 * 
 	 * @param other a formula
 	 * @pre. other != null
 	 * @return approximation of whether this formula is smaller than or equal to the other given formula
 	 */
-	public abstract boolean smallerOrEqual(Formula other);
+	public boolean smallerOrEqual(Formula other) {
+		return Goal.evaluate(Goal.smallerOrEqual(this, other));
+	}
+
+	/**
+	 * Returns the goal that this formula is smaller than or equal to the other given formula.
+	 * Comparisons of subformulas should be described by means of {@link Goal#smallerOrEqual(Formula, Formula)}
+	 * and {@link Goal#greaterOrEqual(Formula, Formula)}, rather than performed by means of
+	 * {@link #smallerOrEqual(Formula)} and {@link #greaterOrEqual(Formula)}, so that they are 
+	 * evaluated without recursion.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return goal that approximates whether this formula is smaller than or equal to the other given formula
+	 */
+	protected abstract Goal smallerOrEqualGoal(Formula other);
 	
 	/**
 	 * Tests whether this formula is greater than or equal to the other given formula.  
 	 * If the method returns true, then this formula is greater than or equal to the other given formula.
 	 * Even if the method returns false, then formula may be greater than or equal to the other given formula.
 	 * 
+	 * The results are cached in the {@link ComparisonCache}.
+	 * 
 	 * @param other a formula
 	 * @pre. other != null
 	 * @return approximation of whether this formula is greater than or equal to the other given formula
 	 */
-	public abstract boolean greaterOrEqual(Formula other);
+	public boolean greaterOrEqual(Formula other) {
+		return Goal.evaluate(Goal.greaterOrEqual(this, other));
+	}
+
+	/**
+	 * Returns the goal that this formula is greater than or equal to the other given formula.
+	 * Comparisons of subformulas should be described by means of {@link Goal#smallerOrEqual(Formula, Formula)}
+	 * and {@link Goal#greaterOrEqual(Formula, Formula)}.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return goal that approximates whether this formula is greater than or equal to the other given formula
+	 */
+	protected abstract Goal greaterOrEqualGoal(Formula other);
+
+	/**
+	 * Compares this formula with the other given formula.  The result combines
+	 * {@code this.smallerOrEqual(other) || other.greaterOrEqual(this)} and
+	 * {@code other.smallerOrEqual(this) || this.greaterOrEqual(other)},
+	 * but where possible both are decided in a single traversal.
+	 * The results are cached in the {@link ComparisonCache}.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return approximation of the order of this formula and the other given formula
+	 */
+	public Order compare(Formula other) {
+		if (this.equals(other)) {
+			return Order.EQUAL;
+		}
+		boolean below = this.boundedBy(other);
+		boolean above = other.boundedBy(this);
+		if (below || above) {
+			// if f <= r and r <= g then f <= g
+			return Order.of(below, above);
+		}
+		boolean cacheable = this.size > 1 || other.size > 1;
+		if (cacheable) {
+			int cached = ComparisonCache.lookup(ComparisonCache.COMPARE, this, other);
+			if (cached != ComparisonCache.ABSENT) {
+				return Order.of(cached);
+			}
+		}
+		Order result = this.computeCompare(other);
+		if (cacheable) {
+			ComparisonCache.store(ComparisonCache.COMPARE, this, other, result.ordinal());
+		}
+		return result;
+	}
+
+	/**
+	 * Compares this formula with the other given formula.  Subclasses that can decide
+	 * both directions in a single traversal should override this method.
+	 * Comparisons of subformulas should be done by means of {@link #compare(Formula)},
+	 * but not for a number of nested subformulas that is proportional to the depth.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return approximation of the order of this formula and the other given formula
+	 */
+	protected Order computeCompare(Formula other) {
+		boolean smallerOrEqual = this.smallerOrEqual(other) || other.greaterOrEqual(this);
+		boolean greaterOrEqual = other.smallerOrEqual(this) || this.greaterOrEqual(other);
+		return Order.of(smallerOrEqual, greaterOrEqual);
+	}
+
+	/**
+	 * Completes a comparison of this formula with the other given formula for which
+	 * the rules of this formula have been applied already.  The rules of the other
+	 * formula are applied only to the directions that are not known to hold yet.
+	 * 
+	 * @param other a formula
+	 * @param smallerOrEqual whether this formula is known to be smaller than or equal to the other formula
+	 * @param greaterOrEqual whether this formula is known to be greater than or equal to the other formula
+	 * @pre. other != null
+	 * @return approximation of the order of this formula and the other given formula
+	 */
+	final Order completeCompare(Formula other, boolean smallerOrEqual, boolean greaterOrEqual) {
+		smallerOrEqual = smallerOrEqual || other.greaterOrEqual(this);
+		greaterOrEqual = greaterOrEqual || other.smallerOrEqual(this);
+		return Order.of(smallerOrEqual, greaterOrEqual);
+	}
 	
 	/**
-	 * Returns the hash code of this formula.
+	 * Returns the hash code of this formula, which is derived from its fingerprint.
+	 * This method is final, since the {@link Interner} relies on it.
 	 * 
 	 * @return the hash code of this formula
 	 */
 	@Override
-	public int hashCode() {
-		return super.hashCode();
+	public final int hashCode() {
+		return (int) this.fingerprintLow;
 	}
 	
 	/**
 	 * Tests whether this formula is syntactically equivalent to the given object.
+	 * This method is final, since the {@link Interner} relies on it being consistent
+	 * with {@link #hashCode()}.
 	 * 
 	 * @param object an object
 	 * @return true if this formula is syntactically equivalent to the given object,
 	 * false otherwise.
 	 */
 	@Override
-	public boolean equals(Object object) {	
-		return super.equals(object);
+	public final boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		} else if (!(object instanceof Formula) || !this.sameNode((Formula) object)) {
+			return false;
+		}
+		Formula other = (Formula) object;
+		boolean shared = true;
+		for (int i = 0; i < this.getArity() && shared; i++) {
+			shared = this.getSubformula(i) == other.getSubformula(i);
+		}
+		if (shared) {
+			// interned formulas share their subformulas
+			return true;
+		}
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(this);
+		pending.push(other);
+		while (!pending.isEmpty()) {
+			Formula second = pending.pop();
+			Formula first = pending.pop();
+			if (first != second) {
+				if (!first.sameNode(second)) {
+					return false;
+				}
+				for (int i = 0; i < first.getArity(); i++) {
+					pending.push(first.getSubformula(i));
+					pending.push(second.getSubformula(i));
+				}
+			}
+		}
+		return true;
 	}
-	
+
+	/**
+	 * Tests whether the roots of the syntax trees of this formula and the given formula
+	 * are the same, that is, whether they are of the same class, have the same fingerprint
+	 * and have the same payload.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null
+	 * @return true if the roots of this formula and the given formula are the same,
+	 * false otherwise
+	 */
+	private boolean sameNode(Formula other) {
+		return this.getClass() == other.getClass() && this.sameFingerprint(other) && this.getArity() == other.getArity()
+				&& this.samePayload(other);
+	}
+
+	/**
+	 * Tests whether this formula and the given formula of the same class have the same
+	 * payload, such as a label or shift.  Subformulas are not taken into account.
+	 * 
+	 * @param other a formula
+	 * @pre. other != null && this.getClass() == other.getClass()
+	 * @return true if this formula and the given formula have the same payload, false otherwise
+	 */
+	protected boolean samePayload(Formula other) {
+		return true;
+	}
+
 	/**
 	 * Returns a string representation of this formula.
 	 *
@@ -114,8 +675,58 @@ public abstract class Formula {
 	 */
 	@Override
 	public String toString() {
-		return super.toString();
+		return this.print(false);
 	}
+
+	/**
+	 * Returns a LaTeX representation of this formula.
+	 *
+	 * @return a LaTeX representation of this formula
+	 */
+	public String toLaTeX() {
+		return this.print(true);
+	}
+
+	/**
+	 * Returns a string or LaTeX representation of this formula.  The syntax tree
+	 * is traversed by means of an explicit stack.
+	 * 
+	 * @param latex whether a LaTeX representation is returned
+	 * @return a LaTeX representation of this formula if latex is true, a string
+	 * representation otherwise
+	 */
+	private String print(boolean latex) {
+		StringBuilder builder = new StringBuilder();
+		Deque<Formula> formulas = new ArrayDeque<Formula>();
+		Deque<Integer> positions = new ArrayDeque<Integer>();
+		formulas.push(this);
+		positions.push(0);
+		while (!formulas.isEmpty()) {
+			Formula formula = formulas.peek();
+			int position = positions.pop();
+			formula.appendPart(builder, position, latex);
+			if (position < formula.getArity()) {
+				positions.push(position + 1);
+				formulas.push(formula.getSubformula(position));
+				positions.push(0);
+			} else {
+				formulas.pop();
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the part of the representation of this formula that precedes the subformula
+	 * with the given index to the given builder.  If the index equals the arity of this
+	 * formula, the part that follows the last subformula is appended.
+	 * 
+	 * @param builder the builder to which the part is appended
+	 * @param position the index of the subformula
+	 * @param latex whether the part of the LaTeX representation is appended
+	 * @pre. position in [0, getArity()]
+	 */
+	protected abstract void appendPart(StringBuilder builder, int position, boolean latex);
 	
 	/**
 	 * Randomness.
@@ -137,8 +748,8 @@ public abstract class Formula {
 		
 		if (depth == 0) {
 			switch (RANDOM.nextInt(BASE_CASES)) {
-			case 0 : return new True();
-			case 1 : return new False();
+			case 0 : return Interner.intern(new True());
+			case 1 : return Interner.intern(new False());
 			case 2 : int length = 1 + RANDOM.nextInt(MAX_LENGTH);
 				String label = "";
 				while (length > 0) {
@@ -146,15 +757,15 @@ public abstract class Formula {
 					label += letter;
 					length--;
 				}
-				return new Label(label);
+				return Interner.intern(new Label(label));
 			default : throw new IllegalArgumentException("Something went wrong with creating a random formula");
 			}
 		} else {
 			switch (RANDOM.nextInt(BASE_CASES + INDUCTIVE_CASES)) {
 			case 0 : 
-				return new True();
+				return Interner.intern(new True());
 			case 1 : 
-				return new False();
+				return Interner.intern(new False());
 			case 2 : 
 				int length = 1 + RANDOM.nextInt(MAX_LENGTH);
 				String label = "";
@@ -163,21 +774,21 @@ public abstract class Formula {
 					label += letter;
 					length--;
 				}
-				return new Label(label);
+				return Interner.intern(new Label(label));
 			case 3 : 
-				return new Next(random(depth - 1));
+				return Interner.intern(new Next(random(depth - 1)));
 			case 4 : 
-				return new Minus(random(depth - 1), RANDOM.nextDouble());
+				return Interner.intern(new Minus(random(depth - 1), RANDOM.nextDouble()));
 			case 5 : 
-				return new Plus(random(depth - 1), RANDOM.nextDouble());
+				return Interner.intern(new Plus(random(depth - 1), RANDOM.nextDouble()));
 			case 6 : 
 				Formula left = random(depth - 1);
 				Formula right = random(depth - 1);
-				return new Or(left, right, false);
+				return Interner.intern(new Or(left, right, false));
 			case 7 : 
 				left = random(depth - 1);
 				right = random(depth - 1);
-				return new And(left, right, false);
+				return Interner.intern(new And(left, right, false));
 			default : throw new IllegalArgumentException("Something went wrong with creating a random formula");
 			}
 		}
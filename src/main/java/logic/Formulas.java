@@ -0,0 +1,141 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+/**
+ * Builds simplified formulas.  Each method applies the rules of {@link Formula#simplify()}
+ * to the node it builds, such as the unit and zero laws, the removal of zero and full
+ * shifts, the flattening of nested conjunctions and disjunctions, the removal of
+ * duplicate and subsumed operands, and O[true] = true and O[false] = false.  The
+ * subformulas are simplified first, which takes no time if they have been built by
+ * this class.  As in {@link Formula#simplify()}, the unsimplified conjunctions among
+ * the operands of a conjunction (disjunctions among the operands of a disjunction)
+ * are flattened before their operands are simplified.  Hence, the result is the same
+ * as the simplification of the formula built from the same formulas by means of the
+ * constructors.  A chain of conjunctions (disjunctions) built by nested calls of this
+ * class, however, is simplified part by part.  The result is semantically equivalent,
+ * but the removal of subsumed operands may differ.  The returned formulas are interned.
+ *
+ * @author Franck van Breugel
+ */
+public final class Formulas {
+	private Formulas() {}
+
+	/**
+	 * The formulas true and false.  Since they are strongly referenced, they remain the
+	 * canonical representatives.
+	 */
+	private static final Formula TRUE = Interner.intern(new True());
+	private static final Formula FALSE = Interner.intern(new False());
+
+	/**
+	 * Returns the formula true.
+	 *
+	 * @return the formula true
+	 */
+	public static Formula tt() {
+		return TRUE;
+	}
+
+	/**
+	 * Returns the formula false.
+	 *
+	 * @return the formula false
+	 */
+	public static Formula ff() {
+		return FALSE;
+	}
+
+	/**
+	 * Returns the formula consisting of the given label.
+	 *
+	 * @param label a label
+	 * @pre. label consists of one or more lowercase letters
+	 * @return the formula consisting of the given label
+	 */
+	public static Formula label(String label) {
+		return Interner.intern(new Label(label));
+	}
+
+	/**
+	 * Returns a simplification of the next formula of the given formula.
+	 *
+	 * @param formula a formula
+	 * @return a simplification of O[formula]
+	 */
+	public static Formula next(Formula formula) {
+		return Interner.intern(Next.rewrite(formula.simplify()));
+	}
+
+	/**
+	 * Returns a simplification of the given formula shifted by the given amount positively.
+	 *
+	 * @param formula a formula
+	 * @param shift the shift amount
+	 * @pre. shift in [0, 1]
+	 * @return a simplification of formula + shift
+	 */
+	public static Formula plus(Formula formula, double shift) {
+		return Interner.intern(Plus.rewrite(formula.simplify(), Shift.of(shift)));
+	}
+
+	/**
+	 * Returns a simplification of the given formula shifted by the given amount negatively.
+	 *
+	 * @param formula a formula
+	 * @param shift the shift amount
+	 * @pre. shift in [0, 1]
+	 * @return a simplification of formula - shift
+	 */
+	public static Formula minus(Formula formula, double shift) {
+		return Interner.intern(Minus.rewrite(formula.simplify(), Shift.of(shift)));
+	}
+
+	/**
+	 * Returns a simplification of the conjunction of the given formulas.  The conjunction
+	 * of no formulas is true.
+	 *
+	 * @param operands formulas
+	 * @return a simplification of the conjunction of the given formulas
+	 */
+	public static Formula and(Formula... operands) {
+		return Interner.intern(And.rewrite(simplify(Operands.flatten(operands, And.class))));
+	}
+
+	/**
+	 * Returns a simplification of the disjunction of the given formulas.  The disjunction
+	 * of no formulas is false.
+	 *
+	 * @param operands formulas
+	 * @return a simplification of the disjunction of the given formulas
+	 */
+	public static Formula or(Formula... operands) {
+		return Interner.intern(Or.rewrite(simplify(Operands.flatten(operands, Or.class))));
+	}
+
+	/**
+	 * Returns the simplifications of the given formulas.
+	 */
+	private static Formula[] simplify(Formula[] formulas) {
+		Formula[] simplifications = new Formula[formulas.length];
+		for (int i = 0; i < formulas.length; i++) {
+			simplifications[i] = formulas[i].simplify();
+		}
+		return simplifications;
+	}
+}
@@ -57,7 +57,7 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	 */
 	@Override
 	public Formula visitTrue(TrueContext context) {
-		return new True();
+		return Interner.intern(new True());
 	}
 
 	/**
@@ -68,7 +68,7 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	 */	
 	@Override
 	public Formula visitFalse(FalseContext context) {
-		return new False();
+		return Interner.intern(new False());
 	}
 	
 	/**
@@ -79,7 +79,7 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	 */	
 	@Override
 	public Formula visitLabel(LabelContext context) {
-		return new Label(context.LABEL().toString());
+		return Interner.intern(new Label(context.LABEL().toString()));
 	}
 	
 	/**
@@ -93,8 +93,8 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	@Override
 	public Formula visitMinus(MinusContext context) {
 		Formula formula = (Formula) visit(context.formula());
-		double shift = Double.parseDouble(context.REAL().toString());
-		return new Minus(formula, shift);
+		long shift = Shift.parse(context.REAL().getText());
+		return Interner.intern(Minus.of(formula, shift, false));
 	}
 	
 	/**
@@ -108,8 +108,8 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	@Override
 	public Formula visitPlus(PlusContext context) {
 		Formula formula = (Formula) visit(context.formula());
-		double shift = Double.parseDouble(context.REAL().toString());
-		return new Plus(formula, shift);
+		long shift = Shift.parse(context.REAL().getText());
+		return Interner.intern(Plus.of(formula, shift, false));
 	}
 
 	/**
@@ -123,7 +123,7 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	@Override
 	public Formula visitNext(NextContext context) {
 		Formula formula = (Formula) visit(context.formula());
-		return new Next(formula);
+		return Interner.intern(new Next(formula));
 	}
 	
 	/**
@@ -138,7 +138,7 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	public Formula visitAnd(AndContext context) {
 		Formula left = (Formula) visit(context.formula(0));
 		Formula right = (Formula) visit(context.formula(1));
-		return new And(left, right, false);
+		return Interner.intern(new And(left, right, false));
 	}
 	
 	/**
@@ -153,6 +153,6 @@ public class Generator extends FormulaBaseVisitor<Formula> {
 	public Formula visitOr(OrContext context) {
 		Formula left = (Formula) visit(context.formula(0));
 		Formula right = (Formula) visit(context.formula(1));
-		return new Or(left, right, false);
+		return Interner.intern(new Or(left, right, false));
 	}
 }
\ No newline at end of file
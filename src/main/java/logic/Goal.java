@@ -0,0 +1,279 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A goal that arises when comparing formulas.  A goal is either a constant, a
+ * comparison of two formulas, or a disjunction or conjunction of goals.  Rather
+ * than comparing their subformulas recursively, formulas describe the comparisons
+ * of their subformulas by means of goals.  These goals are evaluated with an
+ * explicit stack, so that the comparison of very deep formulas does not overflow
+ * the stack of the thread.
+ *
+ * @author Franck van Breugel
+ */
+public abstract class Goal {
+	private Goal() {}
+
+	/**
+	 * The goal that holds.
+	 */
+	public static final Goal TRUE = new Constant(true);
+
+	/**
+	 * The goal that does not hold.
+	 */
+	public static final Goal FALSE = new Constant(false);
+
+	/**
+	 * Returns the goal that holds if and only if the given value is true.
+	 *
+	 * @param value a value
+	 * @return the goal that holds if and only if the given value is true
+	 */
+	public static Goal of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	/**
+	 * Returns the goal that the first given formula is smaller than or equal to the
+	 * second given formula.
+	 *
+	 * @param first a formula
+	 * @param second a formula
+	 * @pre. first != null && second != null
+	 * @return the goal that the first formula is smaller than or equal to the second formula
+	 */
+	public static Goal smallerOrEqual(Formula first, Formula second) {
+		return new Comparison(ComparisonCache.SMALLER_OR_EQUAL, first, second);
+	}
+
+	/**
+	 * Returns the goal that the first given formula is greater than or equal to the
+	 * second given formula.
+	 *
+	 * @param first a formula
+	 * @param second a formula
+	 * @pre. first != null && second != null
+	 * @return the goal that the first formula is greater than or equal to the second formula
+	 */
+	public static Goal greaterOrEqual(Formula first, Formula second) {
+		return new Comparison(ComparisonCache.GREATER_OR_EQUAL, first, second);
+	}
+
+	/**
+	 * Returns the goal that at least one of the given goals holds.  The goals are
+	 * evaluated from left to right until one holds.
+	 *
+	 * @param goals the alternatives
+	 * @return the goal that at least one of the given goals holds
+	 */
+	public static Goal or(Goal... goals) {
+		return junction(true, goals);
+	}
+
+	/**
+	 * Returns the goal that all of the given goals hold.  The goals are
+	 * evaluated from left to right until one does not hold.
+	 *
+	 * @param goals the conditions
+	 * @return the goal that all of the given goals hold
+	 */
+	public static Goal and(Goal... goals) {
+		return junction(false, goals);
+	}
+
+	/**
+	 * Returns the disjunction (if disjunctive is true) or the conjunction (otherwise)
+	 * of the given goals.  Constant goals are removed or decide the junction.
+	 */
+	private static Goal junction(boolean disjunctive, Goal[] goals) {
+		Goal[] remaining = new Goal[goals.length];
+		int length = 0;
+		for (Goal goal : goals) {
+			if (goal instanceof Constant) {
+				if (((Constant) goal).value == disjunctive) {
+					return goal;
+				}
+			} else {
+				remaining[length++] = goal;
+			}
+		}
+		if (length == 0) {
+			return of(!disjunctive);
+		} else if (length == 1) {
+			return remaining[0];
+		} else {
+			return new Junction(disjunctive, Arrays.copyOf(remaining, length));
+		}
+	}
+
+	/**
+	 * Tests whether the given goal holds.  Comparisons of formulas whose bounds
+	 * decide them are not expanded.  Comparisons of formulas that are not both
+	 * atomic are cached in the {@link ComparisonCache}.  The goals are evaluated with
+	 * an explicit stack rather than by means of recursion.
+	 *
+	 * @param goal a goal
+	 * @pre. goal != null
+	 * @return true if the goal holds, false otherwise
+	 */
+	static boolean evaluate(Goal goal) {
+		Deque<Frame> stack = new ArrayDeque<Frame>();
+		boolean value = false;
+		while (true) {
+			// start evaluating the goal, if any
+			if (goal instanceof Comparison) {
+				Comparison comparison = (Comparison) goal;
+				int cached = comparison.lookUp();
+				if (cached == ComparisonCache.ABSENT) {
+					stack.push(new Frame(comparison));
+					goal = comparison.expand();
+					continue;
+				}
+				value = cached == 1;
+			} else if (goal instanceof Junction) {
+				Junction junction = (Junction) goal;
+				stack.push(new Frame(junction));
+				goal = junction.goals[0];
+				continue;
+			} else if (goal instanceof Constant) {
+				value = ((Constant) goal).value;
+			}
+
+			// the last goal has been evaluated to value
+			goal = null;
+			if (stack.isEmpty()) {
+				return value;
+			}
+			Frame frame = stack.peek();
+			if (frame.goal instanceof Comparison) {
+				((Comparison) frame.goal).store(value);
+				stack.pop();
+			} else {
+				Junction junction = (Junction) frame.goal;
+				frame.next++;
+				if (value == junction.disjunctive || frame.next == junction.goals.length) {
+					stack.pop();
+				} else {
+					goal = junction.goals[frame.next];
+				}
+			}
+		}
+	}
+
+	/**
+	 * A goal that is being evaluated.
+	 */
+	private static final class Frame {
+		private final Goal goal;
+		private int next;
+
+		private Frame(Goal goal) {
+			this.goal = goal;
+			this.next = 0;
+		}
+	}
+
+	/**
+	 * A goal that either holds or does not hold.
+	 */
+	private static final class Constant extends Goal {
+		private final boolean value;
+
+		private Constant(boolean value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * The goal that two formulas are related by a comparison.
+	 */
+	private static final class Comparison extends Goal {
+		private final int comparison;
+		private final Formula first;
+		private final Formula second;
+
+		private Comparison(int comparison, Formula first, Formula second) {
+			this.comparison = comparison;
+			this.first = first;
+			this.second = second;
+		}
+
+		/**
+		 * Tests whether the comparison of formulas that are not both atomic is cached.
+		 */
+		private boolean isCacheable() {
+			return this.first.getSize() > 1 || this.second.getSize() > 1;
+		}
+
+		/**
+		 * Returns 1 if this goal is known to hold, 0 if it is known not to hold, and
+		 * {@link ComparisonCache#ABSENT} otherwise.
+		 */
+		private int lookUp() {
+			if (this.first.equals(this.second)) {
+				return 1;
+			} else if (this.comparison == ComparisonCache.SMALLER_OR_EQUAL ? this.first.boundedBy(this.second) : this.second.boundedBy(this.first)) {
+				// if f <= r and r <= g then f <= g
+				return 1;
+			} else if (this.isCacheable()) {
+				return ComparisonCache.lookup(this.comparison, this.first, this.second);
+			} else {
+				return ComparisonCache.ABSENT;
+			}
+		}
+
+		/**
+		 * Returns the goals that this goal amounts to.
+		 */
+		private Goal expand() {
+			if (this.comparison == ComparisonCache.SMALLER_OR_EQUAL) {
+				return this.first.smallerOrEqualGoal(this.second);
+			} else {
+				return this.first.greaterOrEqualGoal(this.second);
+			}
+		}
+
+		/**
+		 * Records whether this goal holds.
+		 */
+		private void store(boolean value) {
+			if (this.isCacheable()) {
+				ComparisonCache.store(this.comparison, this.first, this.second, value ? 1 : 0);
+			}
+		}
+	}
+
+	/**
+	 * A disjunction or conjunction of at least two goals.
+	 */
+	private static final class Junction extends Goal {
+		private final boolean disjunctive;
+		private final Goal[] goals;
+
+		private Junction(boolean disjunctive, Goal[] goals) {
+			this.disjunctive = disjunctive;
+			this.goals = goals;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Interns formulas so that syntactically equivalent formulas are represented by
+ * a single object.  As a result, repeated subformulas are shared and a formula
+ * is represented by a directed acyclic graph rather than a tree.  Interned formulas
+ * are only weakly referenced so that they can be garbage collected once they are
+ * no longer used.  This class is thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public final class Interner {
+	private Interner() {}
+
+	/**
+	 * Number of stripes of the table.  Each stripe is locked separately
+	 * so that threads interning different formulas rarely contend.
+	 * Should be a power of two.
+	 */
+	private static final int STRIPES = 64;
+
+	/**
+	 * The stripes of the table.  Each maps a formula to a weak reference to its
+	 * canonical representative.
+	 */
+	private static final Map<Formula, WeakReference<Formula>>[] TABLE = createTable();
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Map<Formula, WeakReference<Formula>>[] createTable() {
+		Map<Formula, WeakReference<Formula>>[] table = new Map[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			table[i] = new WeakHashMap<Formula, WeakReference<Formula>>();
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the canonical representative of the given formula.  That is, the
+	 * returned formula is syntactically equivalent to the given formula and, as long
+	 * as the returned formula is referenced, any syntactically equivalent formula is
+	 * interned to the same object.
+	 *
+	 * @param formula a formula
+	 * @pre. formula != null
+	 * @return the canonical representative of the given formula
+	 */
+	public static Formula intern(Formula formula) {
+		if (formula.interned) {
+			return formula;
+		}
+		int hash = formula.hashCode();
+		Map<Formula, WeakReference<Formula>> stripe = TABLE[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+		synchronized (stripe) {
+			WeakReference<Formula> reference = stripe.get(formula);
+			Formula canonical = reference == null ? null : reference.get();
+			if (canonical == null) {
+				formula.interned = true;
+				stripe.put(formula, new WeakReference<Formula>(formula));
+				return formula;
+			} else {
+				// a formula syntactically equivalent to a simplified formula is simplified as well
+				if (formula.simplified) {
+					canonical.simplified = true;
+				}
+				return canonical;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of formulas that are currently interned.
+	 *
+	 * @return the number of formulas that are currently interned
+	 */
+	public static int size() {
+		int size = 0;
+		for (Map<Formula, WeakReference<Formula>> stripe : TABLE) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+}
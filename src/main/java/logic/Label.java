@@ -24,6 +24,11 @@ package logic;
  * @author Franck van Breugel
  */
 public class Label extends Formula {
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 3;
+
 	private String label;
 
 	/**
@@ -32,7 +37,7 @@ public class Label extends Formula {
 	 * @param label the label
 	 */
 	public Label(String label) {
-		super(true);
+		super(true, KIND, hash(label), null, null);
 		this.label = label;
 	}
 
@@ -49,7 +54,7 @@ public class Label extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
+	protected Formula computeSimplification() {
 		return this;
 	}
 	
@@ -57,61 +62,60 @@ public class Label extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
+	protected Goal smallerOrEqualGoal(Formula other) {
 		if (other instanceof Label) {
-			if (this.equals(other)) {
-				return true;
+			return Goal.of(this.equals(other));
+		} else if (other instanceof Plus || other instanceof Minus) {
+			// if l <= f and the chain of shifts is above the empty chain then l <= the shifted f
+			if (ShiftChain.IDENTITY.below(ShiftChain.of(other))) {
+				return Goal.smallerOrEqual(this, ShiftChain.base(other));
 			}
-		} else if (other instanceof Plus) {
-			Plus plus = (Plus) other;
-			return this.smallerOrEqual(plus.getSubformula());
 		}
-		return false;
+		return Goal.FALSE;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
+	protected Goal greaterOrEqualGoal(Formula other) {
 		if (other instanceof Label) {
-			if (this.equals(other)) {
-				return true;
+			return Goal.of(this.equals(other));
+		} else if (other instanceof Plus || other instanceof Minus) {
+			// if l >= f and the chain of shifts is below the empty chain then l >= the shifted f
+			if (ShiftChain.of(other).below(ShiftChain.IDENTITY)) {
+				return Goal.greaterOrEqual(this, ShiftChain.base(other));
 			}
-		} else if (other instanceof Minus) {
-			Minus minus = (Minus) other;
-			return this.greaterOrEqual(minus);
 		}
-		return false;
+		return Goal.FALSE;
 	}
-	
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toLaTeX() {
-		return this.label;
+	protected Order computeCompare(Formula other) {
+		if (other instanceof Label) {
+			// different labels are incomparable
+			return this.equals(other) ? Order.EQUAL : Order.INCOMPARABLE;
+		} else {
+			return super.computeCompare(other);
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean equals(Object object) {
-		return object != null && object instanceof Label && this.label.equals(((Label) object).label);
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public int hashCode() {
-		return this.label.hashCode();
+	@Override
+	protected boolean samePayload(Formula other) {
+		return this.label.equals(((Label) other).label);
 	}
-	
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return this.label;
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		builder.append(this.label);
 	}
 }
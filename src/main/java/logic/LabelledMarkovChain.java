@@ -0,0 +1,460 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A labelled Markov chain: a finite set of states, numbered from 0, each with a
+ * probability distribution over its successor states and a set of labels.
+ *
+ * The transitions are stored in compressed sparse row form: the transitions of state s
+ * are those with an index in [offsets[s], offsets[s + 1]), and each has a target and a
+ * probability.  The states with a label are stored as a bit set, that is, as words of
+ * 64 bits.  The labels are numbered by a symbol table, which maps the labels of formulas
+ * onto their bit sets.  Since all of these are primitive arrays, the chain takes 12 bytes
+ * per transition and 4 bytes plus one bit per label per state.
+ *
+ * A chain can be saved in a binary file, from which it can be loaded by mapping the file
+ * into memory.  In that case, the transitions and bit sets are not copied into the heap,
+ * but are read from the file when needed.  The file consists of
+ * <ul>
+ * <li>a header of 5 ints: the magic number, the number of states, the number of
+ * transitions, the number of labels and the size of the symbol table in bytes,</li>
+ * <li>the symbol table: for each label, the length of its UTF-8 encoding as an int,
+ * followed by the encoding,</li>
+ * <li>the offsets, as (number of states + 1) ints,</li>
+ * <li>the targets, as ints, and the probabilities, as doubles, of the transitions,</li>
+ * <li>for each label, the words of its bit set, as ceiling(number of states / 64) longs,</li>
+ * </ul>
+ * in little-endian byte order, where each section starts at a multiple of 8 bytes.  Since
+ * each section is mapped separately, each has to be smaller than 2 GB.
+ *
+ * A chain is immutable and thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public class LabelledMarkovChain {
+	/**
+	 * The first four bytes of a file containing a chain.
+	 */
+	private static final int MAGIC = 0x434D4C01;
+
+	/**
+	 * The size of the header of a file containing a chain, in bytes.
+	 */
+	private static final int HEADER = 5 * Integer.BYTES;
+
+	/**
+	 * Size of the buffer used to write to a file.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final int numberOfStates;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final DoubleBuffer probabilities;
+	private final String[] labels;
+	private final Map<String, Integer> symbols;
+	private final LongBuffer[] words;
+
+	/**
+	 * Initializes this chain with the given transitions, in compressed sparse row form,
+	 * and the given labels.
+	 *
+	 * @param offsets the index of the first transition of each state, followed by the
+	 * number of transitions
+	 * @param targets the target of each transition
+	 * @param probabilities the probability of each transition
+	 * @param labels the states with each label
+	 * @pre. offsets.length &gt;= 1 and offsets is nondecreasing with offsets[0] == 0 and
+	 * offsets[offsets.length - 1] == targets.length == probabilities.length and the targets
+	 * are states and the probabilities of the transitions of each state add up to 1 and
+	 * the states of each label are in [0, offsets.length - 1)
+	 */
+	public LabelledMarkovChain(int[] offsets, int[] targets, double[] probabilities, Map<String, BitSet> labels) {
+		this(offsets.length - 1, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), DoubleBuffer.wrap(probabilities),
+				labels.keySet().toArray(new String[labels.size()]), new LongBuffer[labels.size()]);
+		for (int i = 0; i < this.labels.length; i++) {
+			long[] words = labels.get(this.labels[i]).toLongArray();
+			this.words[i] = LongBuffer.wrap(Arrays.copyOf(words, words(this.numberOfStates)));
+		}
+	}
+
+	/**
+	 * Initializes this chain with the given transitions and labels.
+	 */
+	private LabelledMarkovChain(int numberOfStates, IntBuffer offsets, IntBuffer targets, DoubleBuffer probabilities, String[] labels,
+			LongBuffer[] words) {
+		this.numberOfStates = numberOfStates;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.probabilities = probabilities;
+		this.labels = labels;
+		this.symbols = new HashMap<String, Integer>();
+		for (int i = 0; i < labels.length; i++) {
+			this.symbols.put(labels[i], i);
+		}
+		this.words = words;
+	}
+
+	/**
+	 * Returns the number of words of a bit set of the given number of states.
+	 */
+	private static int words(int numberOfStates) {
+		return (numberOfStates + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	/**
+	 * Returns the number of states of this chain.
+	 *
+	 * @return the number of states of this chain
+	 */
+	public int getNumberOfStates() {
+		return this.numberOfStates;
+	}
+
+	/**
+	 * Returns the number of transitions of this chain.
+	 *
+	 * @return the number of transitions of this chain
+	 */
+	public int getNumberOfTransitions() {
+		return this.targets.limit();
+	}
+
+	/**
+	 * Returns the number of the given label in the symbol table of this chain.
+	 *
+	 * @param label a label
+	 * @return the number of the given label, or -1 if no state has the label
+	 */
+	public int getSymbol(String label) {
+		Integer symbol = this.symbols.get(label);
+		return symbol == null ? -1 : symbol;
+	}
+
+	/**
+	 * Returns the states that have the given label.
+	 *
+	 * @param label a label
+	 * @return the states that have the given label
+	 */
+	public BitSet getStates(String label) {
+		int symbol = this.getSymbol(label);
+		return symbol == -1 ? new BitSet() : BitSet.valueOf(this.words[symbol].duplicate());
+	}
+
+	/**
+	 * Stores in the given result, for each state, 1 if the state has the given label
+	 * and 0 otherwise.
+	 *
+	 * @param label a label
+	 * @param result the array in which the values are stored
+	 * @pre. result.length == getNumberOfStates()
+	 */
+	void label(String label, double[] result) {
+		int symbol = this.getSymbol(label);
+		if (symbol == -1) {
+			Arrays.fill(result, 0);
+		} else {
+			LongBuffer words = this.words[symbol];
+			for (int word = 0; word < words.limit(); word++) {
+				long bits = words.get(word);
+				int end = Math.min(this.numberOfStates, (word + 1) * Long.SIZE);
+				for (int state = word * Long.SIZE; state < end; state++) {
+					result[state] = bits & 1;
+					bits >>>= 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores in the given result, for each state, the expectation of the given values
+	 * with respect to the probability distribution of the state.
+	 *
+	 * @param values a value for each state
+	 * @param result the array in which the expectations are stored
+	 * @pre. values.length == result.length == getNumberOfStates() and values != result
+	 */
+	void next(double[] values, double[] result) {
+		int start = this.offsets.get(0);
+		for (int state = 0; state < this.numberOfStates; state++) {
+			int end = this.offsets.get(state + 1);
+			double expectation = 0;
+			for (int i = start; i < end; i++) {
+				expectation += this.probabilities.get(i) * values[this.targets.get(i)];
+			}
+			result[state] = expectation;
+			start = end;
+		}
+	}
+
+	/**
+	 * Saves this chain in the file with the given path, in the binary format described
+	 * above.  An existing file is overwritten.
+	 *
+	 * @param path the path of a file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		byte[][] encodings = new byte[this.labels.length][];
+		int symbolTable = 0;
+		for (int i = 0; i < this.labels.length; i++) {
+			encodings[i] = this.labels[i].getBytes(StandardCharsets.UTF_8);
+			symbolTable += Integer.BYTES + encodings[i].length;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(this.numberOfStates).putInt(this.getNumberOfTransitions()).putInt(this.labels.length)
+					.putInt(symbolTable);
+			for (byte[] encoding : encodings) {
+				buffer = ensure(channel, buffer, Integer.BYTES);
+				buffer.putInt(encoding.length);
+				for (byte b : encoding) {
+					buffer = ensure(channel, buffer, 1);
+					buffer.put(b);
+				}
+			}
+			buffer = align(channel, buffer);
+			for (int i = 0; i <= this.numberOfStates; i++) {
+				buffer = ensure(channel, buffer, Integer.BYTES);
+				buffer.putInt(this.offsets.get(i));
+			}
+			buffer = align(channel, buffer);
+			for (int i = 0; i < this.getNumberOfTransitions(); i++) {
+				buffer = ensure(channel, buffer, Integer.BYTES);
+				buffer.putInt(this.targets.get(i));
+			}
+			buffer = align(channel, buffer);
+			for (int i = 0; i < this.getNumberOfTransitions(); i++) {
+				buffer = ensure(channel, buffer, Double.BYTES);
+				buffer.putDouble(this.probabilities.get(i));
+			}
+			for (LongBuffer words : this.words) {
+				for (int i = 0; i < words.limit(); i++) {
+					buffer = ensure(channel, buffer, Long.BYTES);
+					buffer.putLong(words.get(i));
+				}
+			}
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Returns the given buffer with room for the given number of bytes, after writing
+	 * its content to the given channel if necessary.
+	 */
+	private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel, buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Writes zeros to the given buffer, so that the next section starts at a multiple of 8 bytes.
+	 */
+	private static ByteBuffer align(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while ((channel.position() + buffer.position()) % Long.BYTES != 0) {
+			buffer = ensure(channel, buffer, 1);
+			buffer.put((byte) 0);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Writes the content of the given buffer to the given channel and clears the buffer.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Loads a chain from the file with the given path, in the binary format described
+	 * above.  Only the header and the symbol table are read; the transitions and the bit
+	 * sets are mapped into memory.
+	 *
+	 * @param path the path of a file
+	 * @return the chain contained in the file
+	 * @throws IOException if the file cannot be read or does not contain a chain
+	 */
+	public static LabelledMarkovChain load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = map(channel, 0, HEADER);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(path + " does not contain a labelled Markov chain");
+			}
+			int numberOfStates = header.getInt();
+			int numberOfTransitions = header.getInt();
+			int numberOfLabels = header.getInt();
+			int symbolTable = header.getInt();
+
+			ByteBuffer symbols = map(channel, HEADER, symbolTable);
+			String[] labels = new String[numberOfLabels];
+			for (int i = 0; i < numberOfLabels; i++) {
+				byte[] encoding = new byte[symbols.getInt()];
+				symbols.get(encoding);
+				labels[i] = new String(encoding, StandardCharsets.UTF_8);
+			}
+
+			long position = align(HEADER + symbolTable);
+			IntBuffer offsets = map(channel, position, (long) (numberOfStates + 1) * Integer.BYTES).asIntBuffer();
+			position = align(position + (long) (numberOfStates + 1) * Integer.BYTES);
+			IntBuffer targets = map(channel, position, (long) numberOfTransitions * Integer.BYTES).asIntBuffer();
+			position = align(position + (long) numberOfTransitions * Integer.BYTES);
+			DoubleBuffer probabilities = map(channel, position, (long) numberOfTransitions * Double.BYTES).asDoubleBuffer();
+			position += (long) numberOfTransitions * Double.BYTES;
+			LongBuffer[] words = new LongBuffer[numberOfLabels];
+			for (int i = 0; i < numberOfLabels; i++) {
+				words[i] = map(channel, position, (long) words(numberOfStates) * Long.BYTES).asLongBuffer();
+				position += (long) words(numberOfStates) * Long.BYTES;
+			}
+			return new LabelledMarkovChain(numberOfStates, offsets, targets, probabilities, labels, words);
+		}
+	}
+
+	/**
+	 * Maps the given region of the given channel into memory, read-only and in little-endian byte order.
+	 */
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		if (position + size > channel.size()) {
+			throw new IOException("File is too short to contain a labelled Markov chain");
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Returns the least multiple of 8 that is greater than or equal to the given position.
+	 */
+	private static long align(long position) {
+		return (position + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+	}
+
+	/**
+	 * Builds a labelled Markov chain from its transitions and labels, which may be added
+	 * in any order.  The transitions are kept in primitive arrays and are sorted by source
+	 * when the chain is built.
+	 */
+	public static class Builder {
+		private final int numberOfStates;
+		private int[] sources;
+		private int[] targets;
+		private double[] probabilities;
+		private int numberOfTransitions;
+		private final Map<String, BitSet> labels;
+
+		/**
+		 * Initializes this builder for a chain with the given number of states, without
+		 * transitions and without labels.
+		 *
+		 * @param numberOfStates the number of states
+		 * @pre. numberOfStates &gt;= 0
+		 */
+		public Builder(int numberOfStates) {
+			this.numberOfStates = numberOfStates;
+			this.sources = new int[16];
+			this.targets = new int[16];
+			this.probabilities = new double[16];
+			this.numberOfTransitions = 0;
+			this.labels = new HashMap<String, BitSet>();
+		}
+
+		/**
+		 * Adds a transition from the given source to the given target with the given probability.
+		 *
+		 * @param source a state
+		 * @param target a state
+		 * @param probability the probability of the transition
+		 * @pre. source and target in [0, numberOfStates) and probability in [0, 1] and
+		 * the probabilities of the transitions of each state add up to 1
+		 * @return this builder
+		 */
+		public Builder addTransition(int source, int target, double probability) {
+			if (this.numberOfTransitions == this.sources.length) {
+				int capacity = 2 * this.numberOfTransitions;
+				this.sources = Arrays.copyOf(this.sources, capacity);
+				this.targets = Arrays.copyOf(this.targets, capacity);
+				this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+			}
+			this.sources[this.numberOfTransitions] = source;
+			this.targets[this.numberOfTransitions] = target;
+			this.probabilities[this.numberOfTransitions] = probability;
+			this.numberOfTransitions++;
+			return this;
+		}
+
+		/**
+		 * Adds the given label to the given state.
+		 *
+		 * @param state a state
+		 * @param label a label
+		 * @pre. state in [0, numberOfStates)
+		 * @return this builder
+		 */
+		public Builder addLabel(int state, String label) {
+			this.labels.computeIfAbsent(label, key -> new BitSet(this.numberOfStates)).set(state);
+			return this;
+		}
+
+		/**
+		 * Returns the chain with the transitions and labels added to this builder.  The
+		 * transitions of each state keep the order in which they were added.
+		 *
+		 * @return the chain with the transitions and labels added to this builder
+		 */
+		public LabelledMarkovChain build() {
+			// counting sort of the transitions by source
+			int[] offsets = new int[this.numberOfStates + 1];
+			for (int i = 0; i < this.numberOfTransitions; i++) {
+				offsets[this.sources[i] + 1]++;
+			}
+			for (int state = 0; state < this.numberOfStates; state++) {
+				offsets[state + 1] += offsets[state];
+			}
+			int[] next = Arrays.copyOf(offsets, this.numberOfStates);
+			int[] targets = new int[this.numberOfTransitions];
+			double[] probabilities = new double[this.numberOfTransitions];
+			for (int i = 0; i < this.numberOfTransitions; i++) {
+				int index = next[this.sources[i]]++;
+				targets[index] = this.targets[i];
+				probabilities[index] = this.probabilities[i];
+			}
+			return new LabelledMarkovChain(offsets, targets, probabilities, this.labels);
+		}
+	}
+}
@@ -24,8 +24,17 @@ package logic;
  * @author Franck van Breugel
  */
 public class Minus extends Formula {
-	private Formula subformula;
-	private double shift;
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 6;
+
+	private final Formula subformula;
+
+	/**
+	 * The shift amount in units; see {@link Shift}.
+	 */
+	private final long shift;
 
 	/**
 	 * Initializes this formula consisting of the given subformula shifted by
@@ -49,9 +58,38 @@ public class Minus extends Formula {
 	 * @param whether this formula is simplified
 	 */
 	public Minus(Formula subformula, double shift, boolean simplified) {
-		super(simplified);
-		this.subformula = subformula;
+		this(Shift.of(shift), subformula, simplified);
+	}
+
+	/**
+	 * Initializes this formula consisting of the given subformula shifted by
+	 * the given number of units negatively (subtracting).
+	 *
+	 * @param shift the shift amount in units
+	 * @param subformula a formula
+	 * @param simplified whether this formula is simplified
+	 */
+	private Minus(long shift, Formula subformula, boolean simplified) {
+		super(simplified, KIND, shift, subformula, null);
+		this.subformula = Interner.intern(subformula);
 		this.shift = shift;
+		// f - q lies in [max(0, l - q), max(0, u - q)] if f lies in [l, u]
+		this.lowerBound = Math.max(0, this.subformula.lowerBound - shift);
+		this.upperBound = Math.max(0, this.subformula.upperBound - shift);
+	}
+
+	/**
+	 * Returns the formula consisting of the given subformula shifted by the given
+	 * number of units negatively (subtracting).
+	 *
+	 * @param subformula a formula
+	 * @param shift the shift amount in units; see {@link Shift}
+	 * @pre. shift in [0, Shift.ONE]
+	 * @param simplified whether the formula is simplified
+	 * @return the given subformula shifted by the given number of units negatively
+	 */
+	public static Minus of(Formula subformula, long shift, boolean simplified) {
+		return new Minus(shift, subformula, simplified);
 	}
 
 	/**
@@ -63,12 +101,41 @@ public class Minus extends Formula {
 		return this.subformula;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArity() {
+		return 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Formula getSubformula(int index) {
+		if (index == 0) {
+			return this.subformula;
+		} else {
+			return super.getSubformula(index);
+		}
+	}
+
 	/**
 	 * Returns the shift amount.
 	 *
 	 * @return the shift amount
 	 */
 	public double getShift() {
+		return Shift.toDouble(this.shift);
+	}
+
+	/**
+	 * Returns the shift amount in units; see {@link Shift}.
+	 *
+	 * @return the shift amount in units
+	 */
+	public long getUnits() {
 		return this.shift;
 	}
 
@@ -76,106 +143,69 @@ public class Minus extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
-		Formula simplifiedFormula = this.subformula.simplified ? this.subformula : this.subformula.simplify();
-		if (simplifiedFormula instanceof False) {
-			// false - q = false
-			return simplifiedFormula;
-		} else if (this.shift < ACCURACY) {
-			// f - 0 = f
-			return simplifiedFormula;
-		} else if (this.shift > 1.0 - ACCURACY) {
-			// f - 1 = false
-			return new False();
-		} else {
-			// if f = f' then f - q = f' - q
-			return new Minus(simplifiedFormula, this.shift, true);
-		}
+	protected Formula computeSimplification() {
+		return rewrite(this.subformula.simplify(), this.shift);
 	}
-	
+
 	/**
-	 * {@inheritDoc}
+	 * Returns a simplification of the given simplified formula shifted by the given amount negatively.
+	 * The chain of shifts of the given formula and the new shift are folded into a chain of at
+	 * most three shifts; see {@link ShiftChain#build(Formula)}.  For example, f - 1 + 1 = false + 1
+	 * = true, f - 0 + 0 = f, and (f + p) - q = f + (p - q) if p &gt;= q.
+	 * 
+	 * @param simplifiedFormula a simplified formula
+	 * @param shift the shift amount in units; see {@link Shift}
+	 * @pre. shift in [0, Shift.ONE]
+	 * @return a simplification of the given formula shifted by the given amount negatively
 	 */
-	@Override
-	public boolean smallerOrEqual(Formula other) {
-		if (this.subformula instanceof Plus) {
-			Plus plus = (Plus) this.subformula;
-			// if f <= g and q >= p then f + p - q <= g
-			if (this.shift >= plus.getShift() && plus.getSubformula().smallerOrEqual(other)) {
-				return true;
-			}
-		}
-		if (other instanceof Minus) {
-			// if f <= f' and q >= q' then f - q <= f' - q'
-			double otherShift = ((Minus) other).getShift();
-			Formula otherSubformula = ((Minus) other).getSubformula();
-			if (this.subformula.smallerOrEqual(otherSubformula) && this.shift >= otherShift) {
-				return true; 
-			}
-		} 
-		if (other instanceof Plus) {
-			double otherShift = ((Plus) other).getShift();
-			Formula otherSubformula = ((Plus) other).getSubformula();
-			// if q >= 1 - q' then f - q <= false + q'
-			if (otherSubformula instanceof False && this.shift >= 1 - otherShift) {
-				return true; 
-			}
-		}
-		// if f <= g then f - q <= g
-		if (this.subformula.smallerOrEqual(other)) {
-			return true; 
-		}
-		return false;
+	static Formula rewrite(Formula simplifiedFormula, long shift) {
+		return ShiftChain.of(simplifiedFormula).minus(shift).build(ShiftChain.base(simplifiedFormula));
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
-		if (other instanceof Minus) {
-			// if f >= f' and q <= q' then f - q >= f' - q'
-			double otherShift = ((Minus) other).getShift();
-			Formula otherSubformula = ((Minus) other).getSubformula();
-			if (this.subformula.greaterOrEqual(otherSubformula) && this.shift <= otherShift) {
-				return true; 
-			}
-		} 
-		return false;
+	protected Goal smallerOrEqualGoal(Formula other) {
+		return ShiftChain.smallerOrEqualGoal(this, other);
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toLaTeX() {
-		return "(" + this.subformula.toLaTeX() + " \\ominus " + this.shift +  ")";
+	protected Goal greaterOrEqualGoal(Formula other) {
+		return ShiftChain.greaterOrEqualGoal(this, other);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean equals(Object object) {
-		if (object != null && this.getClass() == object.getClass()) {
-			Minus other = (Minus) object;
-			return this.subformula.equals(other.subformula) && Math.abs(this.shift - other.shift) < ACCURACY;
-		} else {
-			return false;
+	@Override
+	protected Order computeCompare(Formula other) {
+		if (this.getDepth() > RECURSION_DEPTH || other.getDepth() > RECURSION_DEPTH) {
+			return super.computeCompare(other);
 		}
+		return ShiftChain.compare(this, other);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public int hashCode() {
-		return this.subformula.hashCode();
+	@Override
+	protected boolean samePayload(Formula other) {
+		return this.shift == ((Minus) other).shift;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "(" + this.subformula + " - " + this.shift + ")";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		if (position == 0) {
+			builder.append("(");
+		} else {
+			builder.append(latex ? " \\ominus " : " - ").append(Shift.toString(this.shift)).append(")");
+		}
 	}
 }
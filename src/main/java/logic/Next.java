@@ -24,6 +24,11 @@ package logic;
  * @author Franck van Breugel
  */
 public class Next extends Formula {
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 4;
+
 	private Formula subformula;
 
 	/**
@@ -42,8 +47,11 @@ public class Next extends Formula {
 	 * @param simplified whether this formula is simplified
 	 */
 	public Next(Formula subformula, boolean simplified) {
-		super(simplified);
-		this.subformula = subformula;
+		super(simplified, KIND, 0, subformula, null);
+		this.subformula = Interner.intern(subformula);
+		// the expectation of f lies in the bounds of f
+		this.lowerBound = this.subformula.lowerBound;
+		this.upperBound = this.subformula.upperBound;
 	}
 
 	/**
@@ -59,16 +67,48 @@ public class Next extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
-		// if f = g then X f = X g
-		Formula simplified = this.subformula.simplified ? this.subformula : this.subformula.simplify();
+	public int getArity() {
+		return 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Formula getSubformula(int index) {
+		if (index == 0) {
+			return this.subformula;
+		} else {
+			return super.getSubformula(index);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Formula computeSimplification() {
+		return rewrite(this.subformula.simplify());
+	}
+
+	/**
+	 * Returns a simplification of the next formula with the given simplified subformula.
+	 * 
+	 * @param simplified a simplified formula
+	 * @return a simplification of the next formula with the given subformula
+	 */
+	static Formula rewrite(Formula simplified) {
 		if (simplified instanceof False) {
 			// X false = false
 			return simplified;
 		} else if (simplified instanceof True) {
 			// X true = true
 			return simplified;
+		} else if (simplified.isConstant()) {
+			// X (false + q) = false + q
+			return simplified;
 		} else {
+			// if f = g then X f = X g
 			return new Next(simplified, true); 
 		}
 	}
@@ -77,65 +117,57 @@ public class Next extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
+	protected Goal smallerOrEqualGoal(Formula other) {
 		if (other instanceof Next) {
+			// if f <= g then X f <= X g
 			Formula otherSubformula = ((Next) other).getSubformula();
-			if (this.subformula.smallerOrEqual(otherSubformula)) {
-				// if f <= g then X f <= X g
-				return true; 
-			}
+			return Goal.smallerOrEqual(this.subformula, otherSubformula);
 		} 
-		return false;		
+		return Goal.FALSE;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
+	protected Goal greaterOrEqualGoal(Formula other) {
 		if (other instanceof Next) {
+			// if f >= g then X f >= X g
 			Formula otherSubformula = ((Next) other).getSubformula();
-			if (this.subformula.greaterOrEqual(otherSubformula)) {
-				// if f >= g then X f >= X g
-				return true; 
-			}
+			return Goal.greaterOrEqual(this.subformula, otherSubformula);
 		} 
-		return false;		
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public String toLaTeX() {
-		return "(\\bigcirc " + this.subformula.toLaTeX() + ")";
+		return Goal.FALSE;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean equals(Object object) {
-		if (object != null && this.getClass() == object.getClass()) {
-			Next next = (Next) object;
-			return this.subformula.equals(next.subformula);
+	@Override
+	protected Order computeCompare(Formula other) {
+		if (other instanceof Next) {
+			// X f and X g are ordered as f and g; strip all common X's at once
+			Formula first = this.subformula;
+			Formula second = ((Next) other).getSubformula();
+			while (first instanceof Next && second instanceof Next) {
+				first = ((Next) first).getSubformula();
+				second = ((Next) second).getSubformula();
+			}
+			Order order = first.compare(second);
+			return order == Order.INCOMPARABLE ? Order.UNKNOWN : order;
 		} else {
-			return false;
+			return super.computeCompare(other);
 		}
 	}
 
-	/**
-	 * {@inheritDoc}
-	 */
-	public int hashCode() {
-		return this.subformula.hashCode() + 1;
-	}
-
-
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "O[" + this.subformula.toString() + "]";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		if (position == 0) {
+			builder.append(latex ? "(\\bigcirc " : "O[");
+		} else {
+			builder.append(latex ? ")" : "]");
+		}
 	}
 }
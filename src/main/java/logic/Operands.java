@@ -0,0 +1,314 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Operations on the operands of conjunctions and disjunctions.  Since both are
+ * associative, commutative and idempotent, a chain of conjunctions (or disjunctions)
+ * is simplified as a whole: the chain is flattened into a list of operands, duplicate
+ * operands are removed, and so are the operands that are subsumed by another operand.
+ * The remaining operands are put in a canonical order, so that chains that only differ
+ * in the order of their operands have syntactically equivalent simplifications.
+ *
+ * @author Franck van Breugel
+ */
+final class Operands {
+	private Operands() {}
+
+	/**
+	 * Returns the operands of the chain of formulas of the given class rooted at the
+	 * given formula, from left to right.  The chain consists of the given formula and
+	 * the nested formulas of the same class that are not simplified.
+	 *
+	 * @param formula a conjunction or disjunction
+	 * @param kind the class of the given formula
+	 * @return the operands of the chain rooted at the given formula
+	 */
+	static Formula[] flatten(Formula formula, Class<? extends Formula> kind) {
+		List<Formula> operands = new ArrayList<Formula>();
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		pending.push(formula);
+		while (!pending.isEmpty()) {
+			Formula current = pending.pop();
+			if (current.getClass() == kind && (current == formula || !current.simplified)) {
+				for (int i = current.getArity() - 1; i >= 0; i--) {
+					pending.push(current.getSubformula(i));
+				}
+			} else {
+				operands.add(current);
+			}
+		}
+		return operands.toArray(new Formula[operands.size()]);
+	}
+
+	/**
+	 * Returns the operands of the chains of formulas of the given class rooted at the
+	 * given formulas, from left to right.  A given formula of the given class that is
+	 * not simplified is flattened like the chain rooted at it; any other given formula
+	 * is an operand itself.
+	 *
+	 * @param formulas formulas
+	 * @param kind the class of a conjunction or disjunction
+	 * @return the operands of the chains rooted at the given formulas
+	 */
+	static Formula[] flatten(Formula[] formulas, Class<? extends Formula> kind) {
+		List<Formula> operands = new ArrayList<Formula>();
+		for (Formula formula : formulas) {
+			if (formula.getClass() == kind && !formula.simplified) {
+				operands.addAll(Arrays.asList(flatten(formula, kind)));
+			} else {
+				operands.add(formula);
+			}
+		}
+		return operands.toArray(new Formula[operands.size()]);
+	}
+
+	/**
+	 * Lists of at least this number of operands are searched for subsumed operands by
+	 * means of an index.
+	 */
+	private static final int INDEX_THRESHOLD = 16;
+
+	/**
+	 * The canonical order of operands, which sorts them by their fingerprints.  Since the
+	 * fingerprint of a formula only depends on its syntax, the order does not depend on
+	 * the order in which the operands are given.
+	 */
+	private static final Comparator<Formula> CANONICAL_ORDER = (first, second) -> {
+		int high = Long.compare(first.fingerprintHigh, second.fingerprintHigh);
+		return high != 0 ? high : Long.compare(first.fingerprintLow, second.fingerprintLow);
+	};
+
+	/**
+	 * Returns a simplification of the conjunction (if conjunctive is true) or the disjunction
+	 * (otherwise) of the given simplified formulas.  Nested conjunctions (disjunctions) are
+	 * flattened, and the unit and zero laws are applied.  Furthermore, duplicate operands are
+	 * removed and so are operands that are subsumed by another operand: if f &lt;= g then
+	 * f &amp;&amp; g = f and f || g = g.  The operands are sorted in canonical order before
+	 * subsumed operands are removed, so that the result does not depend on the order of
+	 * the given operands either: if two operands subsume each other, the same one is kept.
+	 *
+	 * @param conjunctive whether the operands are conjoined
+	 * @param simplifiedOperands simplified formulas
+	 * @return a simplification of the conjunction or disjunction of the given formulas
+	 */
+	static Formula rewrite(boolean conjunctive, Formula[] simplifiedOperands) {
+		Class<? extends Formula> kind = conjunctive ? And.class : Or.class;
+		Class<? extends Formula> unit = conjunctive ? True.class : False.class;
+		Class<? extends Formula> zero = conjunctive ? False.class : True.class;
+		List<Formula> operands = new ArrayList<Formula>();
+		Set<Formula> seen = new HashSet<Formula>();
+		Deque<Formula> pending = new ArrayDeque<Formula>();
+		for (int i = simplifiedOperands.length - 1; i >= 0; i--) {
+			pending.push(simplifiedOperands[i]);
+		}
+		while (!pending.isEmpty()) {
+			Formula operand = pending.pop();
+			if (operand.getClass() == kind) {
+				// (f && g) && h = f && g && h
+				for (int i = operand.getArity() - 1; i >= 0; i--) {
+					pending.push(operand.getSubformula(i));
+				}
+			} else if (operand.getClass() == zero) {
+				// false && g = false
+				return operand;
+			} else if (operand.getClass() != unit && seen.add(operand)) {
+				// true && g = g and g && g = g
+				operands.add(operand);
+			}
+		}
+
+		// f && g = g && f
+		Collections.sort(operands, CANONICAL_ORDER);
+
+		List<Formula> kept;
+		if (operands.size() < INDEX_THRESHOLD) {
+			kept = new ArrayList<Formula>();
+			for (Formula operand : operands) {
+				if (!subsumed(conjunctive, operand, kept)) {
+					kept.add(operand);
+				}
+			}
+		} else {
+			kept = removeSubsumed(conjunctive, operands);
+		}
+
+		if (kept.isEmpty()) {
+			return conjunctive ? new True() : new False();
+		} else if (kept.size() == 1) {
+			return kept.get(0);
+		} else {
+			Formula[] array = kept.toArray(new Formula[kept.size()]);
+			return conjunctive ? new And(array, true) : new Or(array, true);
+		}
+	}
+
+	/**
+	 * Tests whether the given operand is subsumed by one of the given kept operands.
+	 * Kept operands that are subsumed by the given operand are removed.
+	 *
+	 * @param conjunctive whether the operands are conjoined
+	 * @param operand a simplified formula
+	 * @param kept simplified formulas none of which subsumes another
+	 * @return true if the given operand is subsumed by one of the kept operands, false otherwise
+	 */
+	private static boolean subsumed(boolean conjunctive, Formula operand, List<Formula> kept) {
+		Iterator<Formula> iterator = kept.iterator();
+		while (iterator.hasNext()) {
+			Order order = operand.compare(iterator.next());
+			if (isRedundant(conjunctive, order)) {
+				return true;
+			}
+			if (makesRedundant(conjunctive, order)) {
+				iterator.remove();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the given operands without those that are subsumed by another operand.  Rather
+	 * than comparing all pairs of operands, each operand is only compared with the earlier
+	 * operands whose {@link Signature} shares a key with its signature, whose ceiling (floor)
+	 * matches its floor (ceiling), or whose wildcard matches.  The other operands cannot be
+	 * related by the rules.  The candidates are compared in their original order, so that the
+	 * result is the same as that of comparing all pairs.
+	 *
+	 * @param conjunctive whether the operands are conjoined
+	 * @param operands simplified formulas, none of which occurs more than once
+	 * @return the operands that are not subsumed by another operand
+	 */
+	private static List<Formula> removeSubsumed(boolean conjunctive, List<Formula> operands) {
+		Formula[] kept = new Formula[operands.size()]; // null if removed
+		Signature[] signatures = new Signature[operands.size()];
+		int count = 0;
+		Map<Long, List<Integer>> labels = new HashMap<Long, List<Integer>>();
+		Map<Long, List<Integer>> ceilings = new HashMap<Long, List<Integer>>();
+		Map<Long, List<Integer>> floors = new HashMap<Long, List<Integer>>();
+		List<Integer> wildcards = new ArrayList<Integer>();
+		for (Formula operand : operands) {
+			Signature signature = operand.getSignature();
+
+			// find the earlier operands that may be related
+			List<Integer> candidates = new ArrayList<Integer>();
+			if (signature.hasWildcard()) {
+				for (int i = 0; i < count; i++) {
+					candidates.add(i);
+				}
+			} else {
+				collect(labels, signature.getKeys(), candidates);
+				collect(floors, signature.getCeilings(), candidates);
+				collect(ceilings, signature.getFloors(), candidates);
+				for (int position : wildcards) {
+					if (signatures[position].wildcardMatches(signature)) {
+						candidates.add(position);
+					}
+				}
+				Collections.sort(candidates);
+			}
+
+			boolean redundant = false;
+			for (int i = 0; i < candidates.size() && !redundant; i++) {
+				int position = candidates.get(i);
+				if (kept[position] != null && (i == 0 || position != candidates.get(i - 1))) {
+					Order order = operand.compare(kept[position]);
+					if (isRedundant(conjunctive, order)) {
+						redundant = true;
+					} else if (makesRedundant(conjunctive, order)) {
+						kept[position] = null;
+					}
+				}
+			}
+
+			if (!redundant) {
+				kept[count] = operand;
+				signatures[count] = signature;
+				if (signature.hasWildcard()) {
+					wildcards.add(count);
+				}
+				register(labels, signature.getKeys(), count);
+				register(ceilings, signature.getCeilings(), count);
+				register(floors, signature.getFloors(), count);
+				count++;
+			}
+		}
+
+		List<Formula> remaining = new ArrayList<Formula>();
+		for (int i = 0; i < count; i++) {
+			if (kept[i] != null) {
+				remaining.add(kept[i]);
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Adds the positions of the given index for the given keys to the given candidates.
+	 */
+	private static void collect(Map<Long, List<Integer>> index, long[] keys, List<Integer> candidates) {
+		for (long key : keys) {
+			List<Integer> positions = index.get(key);
+			if (positions != null) {
+				candidates.addAll(positions);
+			}
+		}
+	}
+
+	/**
+	 * Records the given position in the given index for the given keys.
+	 */
+	private static void register(Map<Long, List<Integer>> index, long[] keys, int position) {
+		for (long key : keys) {
+			List<Integer> positions = index.get(key);
+			if (positions == null) {
+				positions = new ArrayList<Integer>();
+				index.put(key, positions);
+			}
+			positions.add(position);
+		}
+	}
+
+	/**
+	 * Tests whether an operand f that is related by the given order to another operand g
+	 * is subsumed by g: if g &lt;= f then g &amp;&amp; f = g, and if f &lt;= g then g || f = g.
+	 */
+	private static boolean isRedundant(boolean conjunctive, Order order) {
+		return conjunctive ? order.isGreaterOrEqual() : order.isSmallerOrEqual();
+	}
+
+	/**
+	 * Tests whether an operand f that is related by the given order to another operand g
+	 * subsumes g: if f &lt;= g then g &amp;&amp; f = f, and if g &lt;= f then g || f = f.
+	 */
+	private static boolean makesRedundant(boolean conjunctive, Order order) {
+		return conjunctive ? order.isSmallerOrEqual() : order.isGreaterOrEqual();
+	}
+}
@@ -18,19 +18,24 @@
 package logic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
- * The disjunction formula.
+ * The disjunction formula.  A disjunction has two or more operands.
  *
  * @author Amgad Rady
  * @author Franck van Breugel
  */
 public class Or extends Formula {
-	private Formula left;
-	private Formula right;
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 8;
+
+	private final Formula[] operands;
 
 	/**
 	 * Initializes this formula with the given left and right formula.
@@ -50,120 +55,185 @@ public class Or extends Formula {
 	 * @param simplified whether this formula is simplified
 	 */
 	public Or(Formula left, Formula right, boolean simplified) {
-		super(simplified);
-		this.left = left;
-		this.right = right;
+		this(new Formula[] { left, right }, simplified);
+	}
+
+	/**
+	 * Initializes this formula with the given operands.
+	 * 
+	 * @param operands the operands of this disjunction
+	 * @param simplified whether this formula is simplified
+	 * @pre. operands.length &gt;= 2
+	 */
+	public Or(Formula[] operands, boolean simplified) {
+		super(simplified, KIND, 0, operands);
+		this.operands = new Formula[operands.length];
+		for (int i = 0; i < operands.length; i++) {
+			this.operands[i] = Interner.intern(operands[i]);
+		}
+		// f || g lies in [max(l, l'), max(u, u')] if f lies in [l, u] and g in [l', u']
+		this.lowerBound = this.operands[0].lowerBound;
+		this.upperBound = this.operands[0].upperBound;
+		for (Formula operand : this.operands) {
+			this.lowerBound = Math.max(this.lowerBound, operand.lowerBound);
+			this.upperBound = Math.max(this.upperBound, operand.upperBound);
+		}
 	}
 
 	/**
-	 * Returns the left subformula.
+	 * Returns the left subformula.  If this disjunction has more than two operands,
+	 * the left subformula is the disjunction of all operands but the last one.
 	 *
 	 * @return the left subformula
 	 */
 	public Formula getLeft() {
-		return this.left;
+		if (this.operands.length == 2) {
+			return this.operands[0];
+		} else {
+			return new Or(Arrays.copyOf(this.operands, this.operands.length - 1), this.simplified);
+		}
 	}
 	
 	/**
-	 * Returns the right subformula.
+	 * Returns the right subformula, that is, the last operand.
 	 *
 	 * @return the right subformula
 	 */
 	public Formula getRight() {
-		return this.right;
+		return this.operands[this.operands.length - 1];
+	}
+
+	/**
+	 * Returns the operands of this disjunction.
+	 *
+	 * @return the operands of this disjunction
+	 */
+	public Formula[] getOperands() {
+		return this.operands.clone();
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
-		Formula simplifiedLeft = this.left.simplified ? this.left : this.left.simplify();
-		Formula simplifiedRight = this.right.simplified ? this.right : this.right.simplify();
+	public int getArity() {
+		return this.operands.length;
+	}
 
-		// false || g = g
-		if (simplifiedLeft instanceof False) {
-			return simplifiedRight;
-		}
-		
-		// f || false = f
-		if (simplifiedRight instanceof False) {
-			return simplifiedLeft;
-		}
-		
-		// true || g = true
-		if (simplifiedLeft instanceof True) {
-			return simplifiedLeft;
-		}
-		
-		// f || true = true
-		if (simplifiedRight instanceof True) {
-			return simplifiedRight;
-		}
-		
-		// if f <= g then f || g = g
-		if (simplifiedLeft.smallerOrEqual(simplifiedRight)) {
-			return simplifiedRight;
-		}
-		
-		// if g <= f then f || g = f
-		if (simplifiedRight.smallerOrEqual(simplifiedLeft)) {
-			return simplifiedLeft;
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Formula getSubformula(int index) {
+		if (index >= 0 && index < this.operands.length) {
+			return this.operands[index];
+		} else {
+			return super.getSubformula(index);
 		}
-
-		return new Or(simplifiedLeft, simplifiedRight, true);
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Returns the operands of the chain of unsimplified disjunctions rooted at this
+	 * formula, so that the chain is simplified as a whole.
+	 * 
+	 * @return the operands of the chain of disjunctions rooted at this formula
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
-		return this.left.smallerOrEqual(other) && this.right.smallerOrEqual(other);	
+	Formula[] getSimplificationOperands() {
+		return Operands.flatten(this, Or.class);
 	}
-	
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean greaterOrEqual(Formula other) {
-		return this.left.greaterOrEqual(other) || this.right.greaterOrEqual(other);	
+	protected Formula computeSimplification() {
+		Formula[] operands = this.getSimplificationOperands();
+		for (int i = 0; i < operands.length; i++) {
+			operands[i] = operands[i].simplify();
+		}
+		return rewrite(operands);
+	}
+
+	/**
+	 * Returns a simplification of the disjunction of the given simplified formulas.
+	 * 
+	 * @param simplifiedLeft a simplified formula
+	 * @param simplifiedRight a simplified formula
+	 * @return a simplification of the disjunction of the given formulas
+	 */
+	static Formula rewrite(Formula simplifiedLeft, Formula simplifiedRight) {
+		return rewrite(new Formula[] { simplifiedLeft, simplifiedRight });
+	}
+
+	/**
+	 * Returns a simplification of the disjunction of the given simplified formulas.
+	 * Nested disjunctions are flattened, and duplicate and subsumed operands are removed;
+	 * see {@link Operands#rewrite(boolean, Formula[])}.
+	 * 
+	 * @param simplifiedOperands simplified formulas
+	 * @return a simplification of the disjunction of the given formulas
+	 */
+	static Formula rewrite(Formula[] simplifiedOperands) {
+		return Operands.rewrite(false, simplifiedOperands);
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toLaTeX() {
-		return "(" + this.left.toLaTeX() + " \\vee " + this.right.toLaTeX() + ")";
+	protected Goal smallerOrEqualGoal(Formula other) {
+		// if f <= h and g <= h then f || g <= h
+		Goal[] goals = new Goal[this.operands.length];
+		for (int i = 0; i < goals.length; i++) {
+			goals[i] = Goal.smallerOrEqual(this.operands[i], other);
+		}
+		return Goal.and(goals);
 	}
-
+	
 	/**
 	 * {@inheritDoc}
 	 */
-	public boolean equals(Object object) {		
-		if (object != null && object instanceof Or) {
-			Or other = (Or) object;
-			return this.left.equals(other.left) && this.right.equals(other.right);
-
-		} else {
-			return false;
+	@Override
+	protected Goal greaterOrEqualGoal(Formula other) {
+		// if f >= h or g >= h then f || g >= h
+		Goal[] goals = new Goal[this.operands.length];
+		for (int i = 0; i < goals.length; i++) {
+			goals[i] = Goal.greaterOrEqual(this.operands[i], other);
 		}
+		return Goal.or(goals);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public int hashCode() {
-		final int PRIME = 37;
-		return this.left.hashCode() + PRIME * this.right.hashCode();
+	@Override
+	protected Order computeCompare(Formula other) {
+		if (this.getDepth() > RECURSION_DEPTH || other.getDepth() > RECURSION_DEPTH) {
+			return super.computeCompare(other);
+		}
+		// f || g <= h if f <= h and g <= h, and f || g >= h if f >= h or g >= h
+		boolean smallerOrEqual = true;
+		boolean greaterOrEqual = false;
+		for (Formula operand : this.operands) {
+			Order order = operand.compare(other);
+			smallerOrEqual = smallerOrEqual && order.isSmallerOrEqual();
+			greaterOrEqual = greaterOrEqual || order.isGreaterOrEqual();
+		}
+		return this.completeCompare(other, smallerOrEqual, greaterOrEqual);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "(" + this.left + " || " + this.right + ")";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		if (position == 0) {
+			builder.append("(");
+		} else if (position < this.operands.length) {
+			builder.append(latex ? " \\vee " : " || ");
+		} else {
+			builder.append(")");
+		}
 	}
 }
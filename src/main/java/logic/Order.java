@@ -0,0 +1,101 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+/**
+ * The result of comparing two formulas f and g.
+ *
+ * @author Franck van Breugel
+ * @see Formula#compare(Formula)
+ */
+public enum Order {
+	/**
+	 * f is smaller than or equal to g.
+	 */
+	LE,
+
+	/**
+	 * f is greater than or equal to g.
+	 */
+	GE,
+
+	/**
+	 * f and g are semantically equivalent.
+	 */
+	EQUAL,
+
+	/**
+	 * f is neither smaller than or equal to g nor greater than or equal to g.
+	 */
+	INCOMPARABLE,
+
+	/**
+	 * Neither f is known to be smaller than or equal to g nor f is known to be greater than or equal to g.
+	 */
+	UNKNOWN;
+
+	/**
+	 * The orders indexed by their ordinals.  Since {@link #values()} returns a new
+	 * array each time, the orders are only copied once.
+	 */
+	private static final Order[] ORDERS = values();
+
+	/**
+	 * Returns the order with the given ordinal.
+	 *
+	 * @param ordinal the ordinal of an order
+	 * @pre. 0 &lt;= ordinal &lt; values().length
+	 * @return the order with the given ordinal
+	 */
+	static Order of(int ordinal) {
+		return ORDERS[ordinal];
+	}
+
+	/**
+	 * Returns the order corresponding to the given approximations.
+	 *
+	 * @param smallerOrEqual whether f is known to be smaller than or equal to g
+	 * @param greaterOrEqual whether f is known to be greater than or equal to g
+	 * @return the corresponding order
+	 */
+	static Order of(boolean smallerOrEqual, boolean greaterOrEqual) {
+		if (smallerOrEqual) {
+			return greaterOrEqual ? EQUAL : LE;
+		} else {
+			return greaterOrEqual ? GE : UNKNOWN;
+		}
+	}
+
+	/**
+	 * Tests whether f is known to be smaller than or equal to g.
+	 *
+	 * @return true if this order is LE or EQUAL, false otherwise
+	 */
+	public boolean isSmallerOrEqual() {
+		return this == LE || this == EQUAL;
+	}
+
+	/**
+	 * Tests whether f is known to be greater than or equal to g.
+	 *
+	 * @return true if this order is GE or EQUAL, false otherwise
+	 */
+	public boolean isGreaterOrEqual() {
+		return this == GE || this == EQUAL;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a single large formula in parallel.  The input is scanned once to find
+ * the conjunctions and disjunctions that are not nested within brackets.  The
+ * fragments between them are parsed in parallel by {@link PrattParser}s, and the
+ * left-associated spine of conjunctions and disjunctions is assembled from the
+ * fragments.  The result is the same as the result of {@link PrattParser#parse(CharSequence)}.
+ * If the parser simplifies, the fragments are simplified while they are parsed and each
+ * chain of conjunctions or disjunctions of the spine is simplified as a whole; see
+ * {@link PrattParser#PrattParser(boolean)}.
+ *
+ * @author Franck van Breugel
+ */
+public class ParallelParser {
+	/**
+	 * Default minimal number of characters parsed in a separate task.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final boolean simplify;
+
+	/**
+	 * Initializes this parser with the common pool and the default threshold.
+	 */
+	public ParallelParser() {
+		this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Initializes this parser with the given pool and threshold.  Only fragments of
+	 * at least the given number of characters are parsed in a separate task.
+	 *
+	 * @param pool the pool that runs the tasks
+	 * @param threshold the minimal number of characters parsed in a separate task
+	 */
+	public ParallelParser(ForkJoinPool pool, int threshold) {
+		this(pool, threshold, false);
+	}
+
+	/**
+	 * Initializes this parser with the given pool and threshold.  Only fragments of
+	 * at least the given number of characters are parsed in a separate task.  If the
+	 * given flag is true, the parser returns the simplification of the parsed formula.
+	 *
+	 * @param pool the pool that runs the tasks
+	 * @param threshold the minimal number of characters parsed in a separate task
+	 * @param simplify whether the parsed formula is simplified while it is parsed
+	 */
+	public ParallelParser(ForkJoinPool pool, int threshold, boolean simplify) {
+		this.pool = pool;
+		this.threshold = threshold;
+		this.simplify = simplify;
+	}
+
+	/**
+	 * Parses the formula in the file with the given path.  The file is memory-mapped
+	 * and read as ASCII.
+	 *
+	 * @param path the path of a file containing a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file does not contain a formula
+	 */
+	public Formula parse(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() <= Integer.MAX_VALUE) {
+				return this.parse(new AsciiSequence(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+			} else {
+				return new PrattParser(this.simplify).parse(channel);
+			}
+		}
+	}
+
+	/**
+	 * Parses the given formula.
+	 *
+	 * @param input a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IllegalArgumentException if the input is not a formula
+	 */
+	public Formula parse(CharSequence input) {
+		if (input.length() < this.threshold) {
+			return new PrattParser(this.simplify).parse(input);
+		}
+
+		// find the operators that are not nested within brackets
+		int[] operators = new int[16];
+		int count = 0;
+		int depth = 0;
+		int length = input.length();
+		for (int i = 0; i < length; i++) {
+			char current = input.charAt(i);
+			if (current == '(' || current == '[') {
+				depth++;
+			} else if (current == ')' || current == ']') {
+				depth--;
+				if (depth < 0) {
+					break;
+				}
+			} else if (depth == 0 && i + 1 < length && (current == '&' || current == '|') && input.charAt(i + 1) == current) {
+				if (count == operators.length) {
+					operators = Arrays.copyOf(operators, 2 * count);
+				}
+				operators[count++] = i;
+				i++;
+			}
+		}
+		if (depth != 0 || count == 0) {
+			// let the sequential parser parse the formula or report the error
+			return new PrattParser(this.simplify).parse(input);
+		}
+
+		// parse the fragments between the operators
+		Formula[] fragments = new Formula[count + 1];
+		try {
+			this.pool.invoke(new Fragments(input, operators, count, fragments, 0, count + 1));
+		} catch (IllegalArgumentException e) {
+			// the pool may rethrow a copy that wraps the original exception
+			throw e.getCause() instanceof IllegalArgumentException ? (IllegalArgumentException) e.getCause() : e;
+		}
+
+		// assemble the spine: && binds tighter than ||, and both are left associative
+		List<Formula> disjuncts = new ArrayList<Formula>();
+		List<Formula> conjuncts = new ArrayList<Formula>();
+		conjuncts.add(fragments[0]);
+		for (int i = 0; i < count; i++) {
+			if (input.charAt(operators[i]) == '|') {
+				disjuncts.add(this.and(conjuncts));
+				conjuncts.clear();
+			}
+			conjuncts.add(fragments[i + 1]);
+		}
+		disjuncts.add(this.and(conjuncts));
+		Formula formula = this.or(disjuncts);
+		return Interner.intern(this.simplify ? formula.simplify() : formula);
+	}
+
+	/**
+	 * Returns the conjunction of the given formulas, simplified if this parser simplifies.
+	 * Otherwise, the conjunction is left associative.  A single formula is returned as is,
+	 * so that a bracketed chain can still be flattened into an enclosing chain.
+	 */
+	private Formula and(List<Formula> operands) {
+		if (operands.size() == 1) {
+			return operands.get(0);
+		} else if (this.simplify) {
+			return Formulas.and(operands.toArray(new Formula[operands.size()]));
+		} else {
+			Formula conjunction = operands.get(0);
+			for (int i = 1; i < operands.size(); i++) {
+				conjunction = new And(conjunction, operands.get(i), false);
+			}
+			return conjunction;
+		}
+	}
+
+	/**
+	 * Returns the disjunction of the given formulas, simplified if this parser simplifies.
+	 * Otherwise, the disjunction is left associative.  A single formula is returned as is.
+	 */
+	private Formula or(List<Formula> operands) {
+		if (operands.size() == 1) {
+			return operands.get(0);
+		} else if (this.simplify) {
+			return Formulas.or(operands.toArray(new Formula[operands.size()]));
+		} else {
+			Formula disjunction = operands.get(0);
+			for (int i = 1; i < operands.size(); i++) {
+				disjunction = new Or(disjunction, operands.get(i), false);
+			}
+			return disjunction;
+		}
+	}
+
+	/**
+	 * The task of parsing a range of fragments.
+	 */
+	private class Fragments extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence input;
+		private final int[] operators;
+		private final int count;
+		private final Formula[] fragments;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Initializes this task of parsing the fragments with an index from the given
+		 * from (inclusive) to the given to (exclusive).  Fragment i is followed by the
+		 * operator at index i of the given operators.
+		 */
+		private Fragments(CharSequence input, int[] operators, int count, Formula[] fragments, int from, int to) {
+			this.input = input;
+			this.operators = operators;
+			this.count = count;
+			this.fragments = fragments;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Returns the index of the first character of the fragment with the given index.
+		 */
+		private int start(int fragment) {
+			return fragment == 0 ? 0 : this.operators[fragment - 1] + 2;
+		}
+
+		/**
+		 * Returns the index following the last character of the fragment with the given index.
+		 */
+		private int end(int fragment) {
+			return fragment == this.count ? this.input.length() : this.operators[fragment];
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from == 1 || this.end(this.to - 1) - this.start(this.from) < 2 * ParallelParser.this.threshold) {
+				PrattParser parser = new PrattParser(ParallelParser.this.simplify);
+				for (int i = this.from; i < this.to; i++) {
+					this.fragments[i] = parser.parseFragment(this.input, this.start(i), this.end(i));
+				}
+			} else {
+				// split at the first operator in the second half of the characters
+				int target = (this.start(this.from) + this.end(this.to - 1)) >>> 1;
+				int operator = Arrays.binarySearch(this.operators, this.from, this.to - 1, target);
+				if (operator < 0) {
+					operator = -operator - 1;
+				}
+				int middle = Math.max(this.from + 1, Math.min(this.to - 1, operator + 1));
+				invokeAll(new Fragments(this.input, this.operators, this.count, this.fragments, this.from, middle),
+						new Fragments(this.input, this.operators, this.count, this.fragments, middle, this.to));
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simplifies a single formula in parallel.  The operands of conjunctions and 
+ * disjunctions are simplified in parallel, as long as they are sufficiently large.
+ * Smaller subformulas are simplified sequentially.  The result is the same as
+ * the result of {@link Formula#simplify()}.
+ *
+ * @author Franck van Breugel
+ */
+public class ParallelSimplifier {
+	/**
+	 * Default minimal size of a subformula that is simplified in a separate task.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 12;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	/**
+	 * Initializes this simplifier with the common pool and the default threshold.
+	 */
+	public ParallelSimplifier() {
+		this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Initializes this simplifier with the given pool and threshold.  Only subformulas
+	 * of at least the given size are simplified in a separate task.
+	 * 
+	 * @param pool the pool that runs the tasks
+	 * @param threshold the minimal size of a subformula that is simplified in a separate task
+	 */
+	public ParallelSimplifier(ForkJoinPool pool, int threshold) {
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Returns a simplification of the given formula that is semantically equivalent to it.
+	 * 
+	 * @param formula a formula
+	 * @pre. formula != null
+	 * @return a simplification of the given formula
+	 */
+	public Formula simplify(Formula formula) {
+		if (formula.getSize() < this.threshold) {
+			return formula.simplify();
+		} else {
+			return this.pool.invoke(new Simplification(formula));
+		}
+	}
+
+	/**
+	 * The task of simplifying a formula.  The task scans the formula by means of an explicit
+	 * stack for conjunctions and disjunctions with at least two sufficiently large operands,
+	 * simplifies those operands in separate tasks, and finally simplifies the formula
+	 * itself, reusing the simplifications of the subformulas.
+	 */
+	private class Simplification extends RecursiveTask<Formula> {
+		private static final long serialVersionUID = 1L;
+
+		private final Formula formula;
+
+		private Simplification(Formula formula) {
+			this.formula = formula;
+		}
+
+		@Override
+		protected Formula compute() {
+			int threshold = ParallelSimplifier.this.threshold;
+			List<Simplification> tasks = new ArrayList<Simplification>();
+			Set<Formula> visited = Collections.newSetFromMap(new IdentityHashMap<Formula, Boolean>());
+			Deque<Formula> pending = new ArrayDeque<Formula>();
+			pending.push(this.formula);
+			while (!pending.isEmpty()) {
+				Formula formula = pending.pop();
+				if (formula.getSize() >= threshold && visited.add(formula) && formula.lookUpSimplification() == null) {
+					// a chain of conjunctions or disjunctions is simplified as a whole
+					Formula[] operands = formula.getSimplificationOperands();
+					List<Simplification> large = new ArrayList<Simplification>();
+					if (formula instanceof And || formula instanceof Or) {
+						for (Formula operand : operands) {
+							if (operand.getSize() >= threshold) {
+								large.add(new Simplification(operand));
+							}
+						}
+					}
+					if (large.size() >= 2) {
+						tasks.addAll(large);
+					} else {
+						for (Formula operand : operands) {
+							pending.push(operand);
+						}
+					}
+				}
+			}
+			invokeAll(tasks);
+			return this.formula.simplify();
+		}
+	}
+}
@@ -0,0 +1,642 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Parses formulas of the grammar Formula.g4 without building a parse tree.
+ * The abstract syntax tree is built directly from the characters of the input.
+ * The parser is a precedence-climbing parser that keeps the pending operands and
+ * operators on explicit stacks, so that neither deeply nested formulas nor long
+ * chains of conjunctions and disjunctions lead to recursion.  The shifts are
+ * computed from the characters of the input, without creating strings.
+ *
+ * Formulas can also be parsed from a file, which is memory-mapped, or from a channel,
+ * which is read incrementally.  In both cases, the text of the formula is not copied
+ * onto the heap as a whole, so that the memory needed is about the size of the
+ * abstract syntax tree.  Files and channels are read as ASCII, which coincides with
+ * UTF-8 for formulas.
+ *
+ * As in the grammar, the shifts - r and + r bind tighter than &amp;&amp;, which
+ * binds tighter than ||, and both &amp;&amp; and || are left associative.
+ *
+ * A parser may also simplify while it parses.  In that case, each node is simplified
+ * as soon as it is reduced, before its parent is built, so that the unsimplified 
+ * abstract syntax tree never exists in memory.  A chain of conjunctions (or
+ * disjunctions) is reduced, and simplified, as a whole.  A bracketed chain is only
+ * flattened when it is reduced, and it is simplified once it is known whether it is
+ * part of an enclosing chain of the same operator.  Hence, the result is the same as
+ * the simplification of the parsed formula.
+ *
+ * A parser can be reused, but it is not thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public class PrattParser {
+	/**
+	 * The operators that may be on the operator stack.
+	 */
+	private static final int BRACKET = 0;
+	private static final int NEXT = 1;
+	private static final int AND = 2;
+	private static final int OR = 3;
+
+	/**
+	 * Size of the buffer used to read from a channel.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private Input input;
+	private long position;
+
+	private Formula[] operands;
+	private int operandCount;
+	private int[] operators;
+	private int operatorCount;
+
+	private final boolean simplify;
+
+	/**
+	 * Initializes this parser.
+	 */
+	public PrattParser() {
+		this(false);
+	}
+
+	/**
+	 * Initializes this parser.  If the given flag is true, the parser returns the
+	 * simplification of the parsed formula, and simplifies each node as soon as 
+	 * it is reduced.
+	 *
+	 * @param simplify whether the parsed formula is simplified while it is parsed
+	 */
+	public PrattParser(boolean simplify) {
+		this.simplify = simplify;
+		this.operands = new Formula[16];
+		this.operators = new int[16];
+	}
+
+	/**
+	 * Parses the given formula.
+	 *
+	 * @param input a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IllegalArgumentException if the input is not a formula
+	 */
+	public Formula parse(char[] input) {
+		return this.parse(CharBuffer.wrap(input));
+	}
+
+	/**
+	 * Parses the given formula.
+	 *
+	 * @param input a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IllegalArgumentException if the input is not a formula
+	 */
+	public Formula parse(CharSequence input) {
+		return this.parse(input, 0, input.length());
+	}
+
+	/**
+	 * Parses the formula consisting of the characters of the given input from the
+	 * given start (inclusive) to the given end (exclusive).  Positions in error
+	 * messages are positions in the given input.
+	 *
+	 * @param input a character sequence
+	 * @param start the index of the first character of the formula
+	 * @param end the index following the last character of the formula
+	 * @pre. 0 <= start <= end <= input.length()
+	 * @return the abstract syntax tree of the formula
+	 * @throws IllegalArgumentException if the characters do not form a formula
+	 */
+	public Formula parse(CharSequence input, int start, int end) {
+		return this.parse(new Characters(input, end), start, true);
+	}
+
+	/**
+	 * Parses the formula consisting of the characters of the given input from the
+	 * given start (inclusive) to the given end (exclusive), which is a fragment of
+	 * a chain of conjunctions or disjunctions.  If this parser simplifies and the
+	 * fragment is a bracketed chain, then the returned chain is flattened but not
+	 * simplified as a whole, so that it can be simplified together with the
+	 * enclosing chain by {@link Formulas}.
+	 *
+	 * @param input a character sequence
+	 * @param start the index of the first character of the fragment
+	 * @param end the index following the last character of the fragment
+	 * @pre. 0 <= start <= end <= input.length()
+	 * @return the abstract syntax tree of the fragment
+	 * @throws IllegalArgumentException if the characters do not form a formula
+	 */
+	Formula parseFragment(CharSequence input, int start, int end) {
+		return this.parse(new Characters(input, end), start, false);
+	}
+
+	/**
+	 * Parses the formula in the file with the given path.  The file is memory-mapped
+	 * if it is small enough, and read incrementally otherwise.
+	 *
+	 * @param path the path of a file containing a formula
+	 * @return the abstract syntax tree of the formula
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file does not contain a formula
+	 */
+	public Formula parse(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() <= Integer.MAX_VALUE) {
+				return this.parse(new AsciiSequence(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+			} else {
+				return this.parse(channel);
+			}
+		}
+	}
+
+	/**
+	 * Parses the formula read from the given channel.  Only the part of the input
+	 * that contains the current token is kept in memory.
+	 *
+	 * @param channel a channel from which a formula is read
+	 * @return the abstract syntax tree of the formula
+	 * @throws IOException if the channel cannot be read
+	 * @throws IllegalArgumentException if the channel does not provide a formula
+	 */
+	public Formula parse(ReadableByteChannel channel) throws IOException {
+		try {
+			return this.parse(new Stream(channel), 0, true);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Parses the given input from the given position.  If this parser simplifies, 
+	 * the parsed formula is only simplified as a whole if complete is true.
+	 */
+	private Formula parse(Input input, long position, boolean complete) {
+		this.input = input;
+		this.position = position;
+		this.operandCount = 0;
+		this.operatorCount = 0;
+		try {
+			Formula formula = this.parse();
+			if (this.simplify && !complete && !formula.simplified) {
+				// a bracketed chain that is not simplified as a whole yet
+				return formula;
+			}
+			return Interner.intern(this.simplify ? formula.simplify() : formula);
+		} finally {
+			// do not retain the input and the formulas
+			this.input = null;
+			Arrays.fill(this.operands, 0, this.operandCount, null);
+		}
+	}
+
+	/**
+	 * Parses the input.
+	 */
+	private Formula parse() {
+		boolean operand = true; // whether a formula is expected next
+		while (true) {
+			this.skipWhitespace();
+			long start = this.position;
+			this.input.discard(start);
+			int current = this.input.charAt(this.position);
+			if (current == END) {
+				if (operand) {
+					throw this.error("Formula expected");
+				}
+				this.reduce(OR, false);
+				if (this.operatorCount > 0) {
+					throw this.error(this.operators[this.operatorCount - 1] == BRACKET ? "')' expected" : "']' expected");
+				}
+				return this.operands[0];
+			}
+			if (operand) {
+				if (current == '(') {
+					this.position++;
+					this.pushOperator(BRACKET);
+				} else if (current == 'O' && this.next() == '[') {
+					this.position += 2;
+					this.pushOperator(NEXT);
+				} else if (current >= 'a' && current <= 'z') {
+					do {
+						this.position++;
+					} while (this.input.charAt(this.position) >= 'a' && this.input.charAt(this.position) <= 'z');
+					this.pushOperand(this.atom(start, this.position));
+					operand = false;
+				} else {
+					throw this.error("Formula expected");
+				}
+			} else {
+				if (current == '-' || current == '+') {
+					// shifts bind tighter than the binary operators
+					this.position++;
+					long shift = this.real();
+					Formula formula = this.operands[this.operandCount - 1];
+					this.operands[this.operandCount - 1] = current == '-' ? this.minus(formula, shift) : this.plus(formula, shift);
+				} else if (current == '&' && this.next() == '&') {
+					this.position += 2;
+					this.reduce(this.tighter(AND), false);
+					this.pushOperator(AND);
+					operand = true;
+				} else if (current == '|' && this.next() == '|') {
+					this.position += 2;
+					this.reduce(this.tighter(OR), false);
+					this.pushOperator(OR);
+					operand = true;
+				} else if (current == ')') {
+					this.position++;
+					this.reduce(OR, true);
+					if (this.operatorCount == 0 || this.operators[this.operatorCount - 1] != BRACKET) {
+						throw this.error("Unmatched ')'");
+					}
+					this.operatorCount--;
+				} else if (current == ']') {
+					this.position++;
+					this.reduce(OR, false);
+					if (this.operatorCount == 0 || this.operators[this.operatorCount - 1] != NEXT) {
+						throw this.error("Unmatched ']'");
+					}
+					this.operatorCount--;
+					this.operands[this.operandCount - 1] = this.next(this.operands[this.operandCount - 1]);
+				} else {
+					throw this.error("Operator expected");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the formula true, false or the label consisting of the characters of the
+	 * input from the given start (inclusive) to the given end (exclusive).
+	 */
+	private Formula atom(long start, long end) {
+		if (this.matches(start, end, "true")) {
+			return new True();
+		} else if (this.matches(start, end, "false")) {
+			return new False();
+		} else {
+			return new Label(this.input.substring(start, end));
+		}
+	}
+
+	/**
+	 * Tests whether the characters of the input from the given start (inclusive) to
+	 * the given end (exclusive) are the given keyword.
+	 */
+	private boolean matches(long start, long end, String keyword) {
+		if (end - start != keyword.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); i++) {
+			if (this.input.charAt(start + i) != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a real number of the form [0-9]+ ('.' [0-9]+)? and returns its number of
+	 * units; see {@link Shift}.  The number is computed from its digits exactly, and is
+	 * rounded half up to the nearest unit.
+	 */
+	private long real() {
+		this.skipWhitespace();
+		long start = this.position;
+		if (this.digits() == 0) {
+			throw this.error("Real number expected");
+		}
+		long integral = 0;
+		for (long i = start; i < this.position; i++) {
+			integral = Math.min(10 * integral + (this.input.charAt(i) - '0'), Shift.MAXIMUM / Shift.ONE);
+		}
+		long units = Shift.of(integral, 0);
+		if (this.input.charAt(this.position) == '.') {
+			this.position++;
+			long fraction = this.position;
+			if (this.digits() == 0) {
+				throw this.error("Digit expected");
+			}
+			// the decimals beyond the first one that is rounded off do not matter
+			long mantissa = 0;
+			int decimals = 0;
+			for (long i = fraction; i < this.position && decimals <= 12; i++) {
+				mantissa = 10 * mantissa + (this.input.charAt(i) - '0');
+				decimals++;
+			}
+			units += Shift.of(mantissa, decimals);
+		}
+		return units;
+	}
+
+	/**
+	 * Skips digits and returns the number of digits skipped.
+	 */
+	private int digits() {
+		long start = this.position;
+		while (this.input.charAt(this.position) >= '0' && this.input.charAt(this.position) <= '9') {
+			this.position++;
+		}
+		return (int) Math.min(this.position - start, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Skips white space.
+	 */
+	private void skipWhitespace() {
+		while (true) {
+			int current = this.input.charAt(this.position);
+			if (current == ' ' || current == '\t' || current == '\r' || current == '\n' || current == '\f') {
+				this.position++;
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the character following the current one, or {@link #END} if there is none.
+	 */
+	private int next() {
+		return this.input.charAt(this.position + 1);
+	}
+
+	/**
+	 * Applies the binary operators on top of the operator stack that bind at least
+	 * as tight as the given binary operator.  A run of the same operator is applied
+	 * at once to the corresponding operands.  If this parser simplifies and the
+	 * given flag is true, the run that is enclosed by the bracket on the operator
+	 * stack is flattened but not simplified as a whole, since it may be part of
+	 * an enclosing chain of the same operator.
+	 */
+	private void reduce(int operator, boolean bracketed) {
+		while (this.operatorCount > 0 && this.operators[this.operatorCount - 1] >= AND && this.operators[this.operatorCount - 1] <= operator) {
+			int top = this.operators[this.operatorCount - 1];
+			int first = this.operandCount - 1;
+			while (this.operatorCount > 0 && this.operators[this.operatorCount - 1] == top) {
+				this.operatorCount--;
+				first--;
+			}
+			Formula[] chain = Arrays.copyOfRange(this.operands, first, this.operandCount);
+			Arrays.fill(this.operands, first + 1, this.operandCount, null);
+			this.operandCount = first + 1;
+			if (this.simplify && bracketed && this.operatorCount > 0 && this.operators[this.operatorCount - 1] == BRACKET) {
+				this.operands[first] = this.chain(top, chain);
+			} else {
+				this.operands[first] = top == AND ? this.and(chain) : this.or(chain);
+			}
+		}
+	}
+
+	/**
+	 * Returns the chain of conjunctions (if the given operator is AND) or disjunctions 
+	 * of the given formulas, which is flattened and whose operands are simplified, but
+	 * which itself is not simplified.  The chain is simplified by {@link Formulas}, 
+	 * either on its own or as part of an enclosing chain of the same operator, so that 
+	 * the result is the same as the simplification of the parsed formula.
+	 */
+	private Formula chain(int operator, Formula[] operands) {
+		Class<? extends Formula> kind = operator == AND ? And.class : Or.class;
+		Formula[] flattened = Operands.flatten(operands, kind);
+		for (int i = 0; i < flattened.length; i++) {
+			flattened[i] = flattened[i].simplify();
+		}
+		return operator == AND ? new And(flattened, false) : new Or(flattened, false);
+	}
+
+	/**
+	 * Returns the binary operator that binds tighter than the given one and is
+	 * reduced before the given operator is pushed.  If this parser simplifies, runs
+	 * of the same operator are kept on the stack, so that a chain of conjunctions
+	 * or disjunctions is simplified as a whole, rather than one operand at a time.
+	 */
+	private int tighter(int operator) {
+		return this.simplify ? operator - 1 : operator;
+	}
+
+	/**
+	 * Returns the conjunction of the given formulas, simplified if this parser simplifies.
+	 * Otherwise, the conjunction is left associative.
+	 */
+	private Formula and(Formula[] operands) {
+		if (this.simplify) {
+			return Formulas.and(operands);
+		} else {
+			Formula conjunction = operands[0];
+			for (int i = 1; i < operands.length; i++) {
+				conjunction = new And(conjunction, operands[i], false);
+			}
+			return conjunction;
+		}
+	}
+
+	/**
+	 * Returns the disjunction of the given formulas, simplified if this parser simplifies.
+	 * Otherwise, the disjunction is left associative.
+	 */
+	private Formula or(Formula[] operands) {
+		if (this.simplify) {
+			return Formulas.or(operands);
+		} else {
+			Formula disjunction = operands[0];
+			for (int i = 1; i < operands.length; i++) {
+				disjunction = new Or(disjunction, operands[i], false);
+			}
+			return disjunction;
+		}
+	}
+
+	/**
+	 * Returns the next formula of the given formula, simplified if this parser simplifies.
+	 */
+	private Formula next(Formula formula) {
+		return this.simplify ? Formulas.next(formula) : new Next(formula);
+	}
+
+	/**
+	 * Returns the given formula shifted positively, simplified if this parser simplifies.
+	 */
+	private Formula plus(Formula formula, long shift) {
+		return this.simplify ? Interner.intern(Plus.rewrite(formula.simplify(), shift)) : Plus.of(formula, shift, false);
+	}
+
+	/**
+	 * Returns the given formula shifted negatively, simplified if this parser simplifies.
+	 */
+	private Formula minus(Formula formula, long shift) {
+		return this.simplify ? Interner.intern(Minus.rewrite(formula.simplify(), shift)) : Minus.of(formula, shift, false);
+	}
+
+	private void pushOperand(Formula formula) {
+		if (this.operandCount == this.operands.length) {
+			this.operands = Arrays.copyOf(this.operands, 2 * this.operandCount);
+		}
+		this.operands[this.operandCount++] = formula;
+	}
+
+	private void pushOperator(int operator) {
+		if (this.operatorCount == this.operators.length) {
+			this.operators = Arrays.copyOf(this.operators, 2 * this.operatorCount);
+		}
+		this.operators[this.operatorCount++] = operator;
+	}
+
+	/**
+	 * Returns an exception with the given message and the current position.
+	 */
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + this.position);
+	}
+
+	/**
+	 * The value returned by {@link Input#charAt(long)} beyond the end of the input.
+	 */
+	private static final int END = -1;
+
+	/**
+	 * The characters to be parsed.  The input is read from left to right; the parser
+	 * only looks back within the current token.
+	 */
+	private interface Input {
+		/**
+		 * Returns the character with the given index, or {@link #END} if the index
+		 * is beyond the end of the input.
+		 */
+		int charAt(long index);
+
+		/**
+		 * Returns the characters from the given start (inclusive) to the given end (exclusive).
+		 */
+		String substring(long start, long end);
+
+		/**
+		 * Indicates that the characters before the given index are no longer needed.
+		 */
+		void discard(long index);
+	}
+
+	/**
+	 * The characters of a character sequence up to a given end.
+	 */
+	private static final class Characters implements Input {
+		private final CharSequence sequence;
+		private final int end;
+
+		private Characters(CharSequence sequence, int end) {
+			this.sequence = sequence;
+			this.end = end;
+		}
+
+		@Override
+		public int charAt(long index) {
+			return index < this.end ? this.sequence.charAt((int) index) : END;
+		}
+
+		@Override
+		public String substring(long start, long end) {
+			return this.sequence.subSequence((int) start, (int) end).toString();
+		}
+
+		@Override
+		public void discard(long index) {}
+	}
+
+	/**
+	 * The characters read incrementally from a channel of ASCII bytes.  Only the characters
+	 * from the oldest character that is still needed onwards are kept in a window, which
+	 * grows only if a single token does not fit.
+	 */
+	private static final class Stream implements Input {
+		private final ReadableByteChannel channel;
+		private byte[] window;
+		private long first; // index of the first character of the window
+		private int count; // number of characters in the window
+		private long needed; // index of the oldest character that is still needed
+		private boolean end;
+
+		private Stream(ReadableByteChannel channel) {
+			this.channel = channel;
+			this.window = new byte[BUFFER_SIZE];
+			this.first = 0;
+			this.count = 0;
+			this.needed = 0;
+			this.end = false;
+		}
+
+		@Override
+		public int charAt(long index) {
+			while (index >= this.first + this.count) {
+				if (!this.fill()) {
+					return END;
+				}
+			}
+			return this.window[(int) (index - this.first)] & 0xFF;
+		}
+
+		/**
+		 * Reads more characters into the window.  Returns false if the end of the channel has been reached.
+		 */
+		private boolean fill() {
+			if (this.end) {
+				return false;
+			}
+			int unneeded = (int) Math.min(this.needed - this.first, this.count);
+			if (unneeded > 0) {
+				System.arraycopy(this.window, unneeded, this.window, 0, this.count - unneeded);
+				this.first += unneeded;
+				this.count -= unneeded;
+			}
+			if (this.count == this.window.length) {
+				this.window = Arrays.copyOf(this.window, 2 * this.window.length);
+			}
+			try {
+				int read = this.channel.read(ByteBuffer.wrap(this.window, this.count, this.window.length - this.count));
+				if (read == -1) {
+					this.end = true;
+					return false;
+				}
+				this.count += read;
+				return true;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public String substring(long start, long end) {
+			return new String(this.window, (int) (start - this.first), (int) (end - start), StandardCharsets.ISO_8859_1);
+		}
+
+		@Override
+		public void discard(long index) {
+			this.needed = index;
+		}
+	}
+}
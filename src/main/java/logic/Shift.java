@@ -0,0 +1,140 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact shift amounts.  A shift amount is represented by a long, the number of units
+ * of {@link Formula#ACCURACY} that it consists of.  As a result, shift amounts are
+ * added, compared and hashed exactly, and folding chains of shifts does not accumulate
+ * rounding errors.  Shift amounts given as doubles are rounded to the nearest unit.
+ *
+ * @author Franck van Breugel
+ */
+public final class Shift {
+	private Shift() {}
+
+	/**
+	 * The number of decimals of a unit.
+	 */
+	private static final int DECIMALS = 12;
+
+	/**
+	 * The number of units of the shift amount 1.
+	 */
+	public static final long ONE = 1_000_000_000_000L;
+
+	/**
+	 * The largest number of units of a parsed shift amount.  Larger amounts are
+	 * truncated to it, so that sums of shift amounts do not overflow.
+	 */
+	static final long MAXIMUM = 1_000_000 * ONE;
+
+	/**
+	 * Powers of ten that are at most ONE.
+	 */
+	private static final long[] POWERS_OF_TEN = {
+			1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+			1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L };
+
+	/**
+	 * Returns the number of units of the given shift amount, rounded to the nearest unit.
+	 *
+	 * @param shift a shift amount
+	 * @return the number of units of the given shift amount
+	 */
+	public static long of(double shift) {
+		return Math.round(shift * ONE);
+	}
+
+	/**
+	 * Returns the number of units of the shift amount given by its digits, without the
+	 * decimal point, and its number of decimals.  The amount is rounded half up to the
+	 * nearest unit.
+	 *
+	 * @param mantissa the digits of the shift amount
+	 * @param decimals the number of decimals of the shift amount
+	 * @pre. mantissa &gt;= 0 and decimals &gt;= 0 and mantissa &lt;= MAXIMUM / ONE if decimals == 0
+	 * @return the number of units of the given shift amount
+	 */
+	static long of(long mantissa, int decimals) {
+		if (decimals <= DECIMALS) {
+			return mantissa * POWERS_OF_TEN[DECIMALS - decimals];
+		} else if (decimals - DECIMALS < POWERS_OF_TEN.length) {
+			long divisor = POWERS_OF_TEN[decimals - DECIMALS];
+			return (mantissa + divisor / 2) / divisor;
+		} else {
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the number of units of the shift amount represented by the given string
+	 * of the form [0-9]+ ('.' [0-9]+)?.  The amount is rounded half up to the nearest unit.
+	 *
+	 * @param shift the decimal representation of a shift amount
+	 * @return the number of units of the given shift amount
+	 * @throws NumberFormatException if the string does not represent a decimal number
+	 */
+	public static long parse(String shift) {
+		BigDecimal units = new BigDecimal(shift).movePointRight(DECIMALS).setScale(0, RoundingMode.HALF_UP);
+		return units.min(BigDecimal.valueOf(MAXIMUM)).longValue();
+	}
+
+	/**
+	 * Returns the shift amount with the given number of units as a double.
+	 *
+	 * @param units the number of units of a shift amount
+	 * @return the shift amount as a double
+	 */
+	public static double toDouble(long units) {
+		return (double) units / ONE;
+	}
+
+	/**
+	 * Returns the decimal representation of the shift amount with the given number of
+	 * units.  The representation has at least one decimal and no trailing zeros otherwise,
+	 * so that it can be parsed.
+	 *
+	 * @param units the number of units of a shift amount
+	 * @pre. units &gt;= 0
+	 * @return the decimal representation of the shift amount
+	 */
+	public static String toString(long units) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(units / ONE).append('.');
+		long fraction = units % ONE;
+		if (fraction == 0) {
+			builder.append('0');
+		} else {
+			int decimals = DECIMALS;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				decimals--;
+			}
+			String digits = Long.toString(fraction);
+			for (int i = digits.length(); i < decimals; i++) {
+				builder.append('0');
+			}
+			builder.append(digits);
+		}
+		return builder.toString();
+	}
+}
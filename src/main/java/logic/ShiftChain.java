@@ -0,0 +1,312 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chain of shifts folded into a single clamped shift.  Since [[f + q]] = min(1, [[f]] + q)
+ * and [[f - q]] = max(0, [[f]] - q), every chain of shifts applied to a formula f maps the
+ * value x of f to min(upper, max(lower, x + shift)), where lower and upper are the values
+ * of the chain for x = 0 and x = 1.  Conversely, each such map is the semantics of a chain
+ * of at most three shifts, which is used as the canonical form of all equivalent chains.
+ *
+ * The shift, lower and upper bound are numbers of units (see {@link Shift}), so that chains
+ * are folded exactly.  The shift is kept in [-1, 1]; a larger shift yields the same map, since
+ * the values of formulas lie in [0, 1].
+ *
+ * @author Franck van Breugel
+ */
+final class ShiftChain {
+	/**
+	 * The empty chain.
+	 */
+	static final ShiftChain IDENTITY = new ShiftChain(0, 0, Shift.ONE);
+
+	private final long shift;
+	private final long lower;
+	private final long upper;
+
+	/**
+	 * Initializes this chain with the given shift and bounds.
+	 *
+	 * @param shift the sum of the shifts, negated for the negative ones
+	 * @param lower the value of the chain for 0
+	 * @param upper the value of the chain for 1
+	 * @pre. 0 &lt;= lower &lt;= upper &lt;= Shift.ONE
+	 */
+	private ShiftChain(long shift, long lower, long upper) {
+		this.shift = Math.max(-Shift.ONE, Math.min(Shift.ONE, shift));
+		this.lower = lower;
+		this.upper = upper;
+	}
+
+	/**
+	 * Returns the formula to which the maximal chain of shifts of the given formula is applied.
+	 *
+	 * @param formula a formula
+	 * @return the formula to which the chain of shifts of the given formula is applied
+	 */
+	static Formula base(Formula formula) {
+		while (formula instanceof Plus || formula instanceof Minus) {
+			formula = formula.getSubformula(0);
+		}
+		return formula;
+	}
+
+	/**
+	 * Returns the maximal chain of shifts of the given formula, folded.
+	 *
+	 * @param formula a formula
+	 * @return the folded chain of shifts of the given formula
+	 */
+	static ShiftChain of(Formula formula) {
+		List<Formula> shifts = new ArrayList<Formula>();
+		while (formula instanceof Plus || formula instanceof Minus) {
+			shifts.add(formula);
+			formula = formula.getSubformula(0);
+		}
+		ShiftChain chain = IDENTITY;
+		for (int i = shifts.size() - 1; i >= 0; i--) {
+			Formula shift = shifts.get(i);
+			if (shift instanceof Plus) {
+				chain = chain.plus(((Plus) shift).getUnits());
+			} else {
+				chain = chain.minus(((Minus) shift).getUnits());
+			}
+		}
+		return chain;
+	}
+
+	/**
+	 * Returns this chain followed by the positive shift by the given amount.
+	 *
+	 * @param amount the shift amount in units
+	 * @pre. amount &gt;= 0
+	 * @return this chain followed by the positive shift by the given amount
+	 */
+	ShiftChain plus(long amount) {
+		return new ShiftChain(this.shift + amount, Math.min(Shift.ONE, this.lower + amount), Math.min(Shift.ONE, this.upper + amount));
+	}
+
+	/**
+	 * Returns this chain followed by the negative shift by the given amount.
+	 *
+	 * @param amount the shift amount in units
+	 * @pre. amount &gt;= 0
+	 * @return this chain followed by the negative shift by the given amount
+	 */
+	ShiftChain minus(long amount) {
+		return new ShiftChain(this.shift - amount, Math.max(0, this.lower - amount), Math.max(0, this.upper - amount));
+	}
+
+	/**
+	 * Returns the value of this chain for the given value.
+	 *
+	 * @param value a value in units
+	 * @return the value of this chain for the given value
+	 */
+	private long apply(long value) {
+		return Math.min(this.upper, Math.max(this.lower, value + this.shift));
+	}
+
+	/**
+	 * Tests whether the value of this chain is at most the value of the given chain, for
+	 * all values.  Since both are piecewise linear, it suffices to compare them at 0, 1 and
+	 * the points where they bend.
+	 *
+	 * @param other a chain
+	 * @return true if this chain is pointwise smaller than or equal to the given chain
+	 */
+	boolean below(ShiftChain other) {
+		long[] points = { 0, Shift.ONE, this.lower - this.shift, this.upper - this.shift, other.lower - other.shift, other.upper - other.shift };
+		for (long point : points) {
+			if (point >= 0 && point <= Shift.ONE && this.apply(point) > other.apply(point)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the simplified formula with the given constant value: false, true, or false
+	 * shifted positively.
+	 *
+	 * @param value a value in units
+	 * @pre. value in [0, Shift.ONE]
+	 * @return the simplified formula with the given value
+	 */
+	static Formula constant(long value) {
+		if (value == 0) {
+			return new False();
+		} else if (value == Shift.ONE) {
+			return new True();
+		} else {
+			return Plus.of(new False(), value, true);
+		}
+	}
+
+	/**
+	 * Returns the canonical formula for this chain applied to the given simplified base.
+	 * If the value does not depend on the base, given its bounds, it is true, false, or
+	 * false shifted positively.  Otherwise, it is the base followed by at most three
+	 * shifts: a negative shift if the chain raises the least value of the base, a positive
+	 * shift, and a negative shift if the chain lowers the largest value of the base.
+	 *
+	 * @param base a simplified formula that is not a shift
+	 * @return a simplification of this chain applied to the given base
+	 */
+	Formula build(Formula base) {
+		long least = this.apply(base.lowerBound);
+		long largest = this.apply(base.upperBound);
+		if (least == largest) {
+			// the value does not depend on the base
+			return constant(least);
+		}
+		boolean floored = this.lower > Math.max(0, this.shift) && base.lowerBound + this.shift < this.lower;
+		boolean capped = this.upper < Math.min(Shift.ONE, Shift.ONE + this.shift) && base.upperBound + this.shift > this.upper;
+		Formula formula = base;
+		long shift = this.shift;
+		if (floored) {
+			// max(lower, x + shift) = max(0, x - (lower - shift)) + lower
+			formula = Minus.of(formula, this.lower - shift, true);
+			shift = this.lower;
+		}
+		if (capped) {
+			// min(upper, y + shift) = max(0, min(1, y + shift + 1 - upper) - (1 - upper))
+			formula = Plus.of(formula, shift + Shift.ONE - this.upper, true);
+			formula = Minus.of(formula, Shift.ONE - this.upper, true);
+		} else if (shift > 0) {
+			formula = Plus.of(formula, shift, true);
+		} else if (shift < 0) {
+			formula = Minus.of(formula, -shift, true);
+		}
+		return formula;
+	}
+
+	/**
+	 * Returns the goal that the first given formula is smaller than or equal to the second
+	 * given formula, where the first formula is a shift.  The goal holds if the chains of
+	 * shifts of the formulas are pointwise ordered and their bases are ordered.
+	 * A chain of shifts of one of the formulas may also be compared with the other formula
+	 * as a whole, if the chain is pointwise ordered with the empty chain.
+	 *
+	 * @param first a shift
+	 * @param second a formula
+	 * @return the goal that the first formula is smaller than or equal to the second formula
+	 */
+	static Goal smallerOrEqualGoal(Formula first, Formula second) {
+		Formula firstBase = base(first);
+		Formula secondBase = base(second);
+		ShiftChain firstChain = of(first);
+		ShiftChain secondChain = of(second);
+		// if f <= g and the chains are ordered then the shifted f <= the shifted g
+		Goal bases = firstChain.below(secondChain) ? Goal.smallerOrEqual(firstBase, secondBase) : Goal.FALSE;
+		Goal left = Goal.FALSE;
+		Goal right = Goal.FALSE;
+		if (secondBase != second) {
+			// if f <= g and the chain of f is below the empty chain then the shifted f <= g
+			if (firstChain.below(IDENTITY)) {
+				left = Goal.smallerOrEqual(firstBase, second);
+			}
+			// if f <= g and the chain of g is above the empty chain then f <= the shifted g
+			if (IDENTITY.below(secondChain)) {
+				right = Goal.smallerOrEqual(first, secondBase);
+			}
+		}
+		return Goal.or(bases, left, right);
+	}
+
+	/**
+	 * Returns the goal that the first given formula is greater than or equal to the second
+	 * given formula, where the first formula is a shift.  This is the dual of
+	 * {@link #smallerOrEqualGoal(Formula, Formula)}.
+	 *
+	 * @param first a shift
+	 * @param second a formula
+	 * @return the goal that the first formula is greater than or equal to the second formula
+	 */
+	static Goal greaterOrEqualGoal(Formula first, Formula second) {
+		Formula firstBase = base(first);
+		Formula secondBase = base(second);
+		ShiftChain firstChain = of(first);
+		ShiftChain secondChain = of(second);
+		// if f >= g and the chains are ordered then the shifted f >= the shifted g
+		Goal bases = secondChain.below(firstChain) ? Goal.greaterOrEqual(firstBase, secondBase) : Goal.FALSE;
+		Goal left = Goal.FALSE;
+		Goal right = Goal.FALSE;
+		if (secondBase != second) {
+			// if f >= g and the chain of f is above the empty chain then the shifted f >= g
+			if (IDENTITY.below(firstChain)) {
+				left = Goal.greaterOrEqual(firstBase, second);
+			}
+			// if f >= g and the chain of g is below the empty chain then f >= the shifted g
+			if (secondChain.below(IDENTITY)) {
+				right = Goal.greaterOrEqual(first, secondBase);
+			}
+		}
+		return Goal.or(bases, left, right);
+	}
+
+	/**
+	 * Compares the first given formula, which is a shift, with the second given formula
+	 * by applying the rules of {@link #smallerOrEqualGoal(Formula, Formula)} and
+	 * {@link #greaterOrEqualGoal(Formula, Formula)} in a single pass.  The bases are
+	 * compared at most once for both directions.
+	 *
+	 * @param first a shift
+	 * @param second a formula
+	 * @return approximation of the order of the first formula and the second formula
+	 */
+	static Order compare(Formula first, Formula second) {
+		Formula firstBase = base(first);
+		Formula secondBase = base(second);
+		ShiftChain firstChain = of(first);
+		ShiftChain secondChain = of(second);
+		boolean smallerOrEqual = false;
+		boolean greaterOrEqual = false;
+		boolean below = firstChain.below(secondChain);
+		boolean above = secondChain.below(firstChain);
+		if (below || above) {
+			Order bases = firstBase.compare(secondBase);
+			smallerOrEqual = below && bases.isSmallerOrEqual();
+			greaterOrEqual = above && bases.isGreaterOrEqual();
+		}
+		if (secondBase == second) {
+			// the rules of the second formula still have to be applied
+			return first.completeCompare(second, smallerOrEqual, greaterOrEqual);
+		}
+		// the rules of the second formula are the mirror images of the ones below
+		boolean leftBelow = !smallerOrEqual && firstChain.below(IDENTITY);
+		boolean leftAbove = !greaterOrEqual && IDENTITY.below(firstChain);
+		if (leftBelow || leftAbove) {
+			Order left = firstBase.compare(second);
+			smallerOrEqual = smallerOrEqual || leftBelow && left.isSmallerOrEqual();
+			greaterOrEqual = greaterOrEqual || leftAbove && left.isGreaterOrEqual();
+		}
+		boolean rightAbove = !smallerOrEqual && IDENTITY.below(secondChain);
+		boolean rightBelow = !greaterOrEqual && secondChain.below(IDENTITY);
+		if (rightAbove || rightBelow) {
+			Order right = first.compare(secondBase);
+			smallerOrEqual = smallerOrEqual || rightAbove && right.isSmallerOrEqual();
+			greaterOrEqual = greaterOrEqual || rightBelow && right.isGreaterOrEqual();
+		}
+		return Order.of(smallerOrEqual, greaterOrEqual);
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * An over-approximation of the formulas to which a formula may be related by
+ * {@link Formula#compare(Formula)}.  The rules of Label, Next, Plus, Minus, And and Or
+ * relate two formulas only if
+ * <ul>
+ * <li>both contain the same label nested within the same number of next operators, or</li>
+ * <li>one contains true or false, nested within a number of next operators that does not
+ * exceed the nesting of some label, true or false in the other, or</li>
+ * <li>one contains a subformula whose upper bound is less than 1 and the other contains
+ * a subformula whose lower bound is greater than 0, both nested within the same number
+ * of next operators; see {@link Formula#getUpperBound()}.</li>
+ * </ul>
+ * The shifts, conjunctions and disjunctions are transparent, since they relate formulas
+ * only if (some of) their subformulas are related.  Next formulas are only related to
+ * next formulas, which is why the number of enclosing next operators is recorded.
+ *
+ * A signature consists of keys for the labels, each combined with its number of
+ * enclosing next operators, the numbers of next operators enclosing subformulas with
+ * an upper bound less than 1 (ceilings) and with a lower bound greater than 0 (floors),
+ * and the least number of next operators enclosing true or false, its wildcard.  A formula with too many keys gets
+ * a wildcard instead.
+ *
+ * @author Franck van Breugel
+ */
+final class Signature {
+	/**
+	 * The wildcard of a formula that contains neither true nor false.
+	 */
+	static final int NONE = Integer.MAX_VALUE;
+
+	/**
+	 * The maximal number of keys of a signature.
+	 */
+	private static final int MAXIMAL_KEYS = 16;
+
+	/**
+	 * The difference between the keys of a label nested within n + 1 and n next operators.
+	 */
+	private static final long NEXT = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The signature of a formula that may be related to any formula.
+	 */
+	private static final Signature ANY = new Signature(new long[0], new long[0], new long[0], 0, 0, 0);
+
+	private final long[] keys;
+	private final long[] ceilings;
+	private final long[] floors;
+	private final int wildcard;
+	private final int minimalNesting;
+	private final int maximalNesting;
+
+	/**
+	 * Initializes this signature.
+	 *
+	 * @param keys the distinct keys of the labels, sorted
+	 * @param ceilings the distinct nestings of subformulas bounded from above, sorted
+	 * @param floors the distinct nestings of subformulas bounded from below, sorted
+	 * @param wildcard the least nesting of true or false, or NONE
+	 * @param minimalNesting the least nesting of a label, true, false or bounded subformula
+	 * @param maximalNesting the largest nesting of a label, true, false or bounded subformula
+	 */
+	private Signature(long[] keys, long[] ceilings, long[] floors, int wildcard, int minimalNesting, int maximalNesting) {
+		if (keys.length + ceilings.length + floors.length > MAXIMAL_KEYS) {
+			// a wildcard at the least nesting is related to at least the same formulas
+			this.keys = new long[0];
+			this.ceilings = new long[0];
+			this.floors = new long[0];
+			this.wildcard = Math.min(wildcard, minimalNesting);
+		} else {
+			this.keys = keys;
+			this.ceilings = ceilings;
+			this.floors = floors;
+			this.wildcard = wildcard;
+		}
+		this.minimalNesting = minimalNesting;
+		this.maximalNesting = maximalNesting;
+	}
+
+	/**
+	 * Returns the keys of the labels of this signature.
+	 *
+	 * @return the keys of the labels of this signature
+	 */
+	long[] getKeys() {
+		return this.keys;
+	}
+
+	/**
+	 * Returns the nestings of the subformulas of this signature that are bounded from above.
+	 *
+	 * @return the nestings of the subformulas that are bounded from above
+	 */
+	long[] getCeilings() {
+		return this.ceilings;
+	}
+
+	/**
+	 * Returns the nestings of the subformulas of this signature that are bounded from below.
+	 *
+	 * @return the nestings of the subformulas that are bounded from below
+	 */
+	long[] getFloors() {
+		return this.floors;
+	}
+
+	/**
+	 * Tests whether this signature has a wildcard.
+	 *
+	 * @return true if this signature has a wildcard, false otherwise
+	 */
+	boolean hasWildcard() {
+		return this.wildcard != NONE;
+	}
+
+	/**
+	 * Tests whether the wildcard of this signature may be related to the formula with the
+	 * given signature.
+	 *
+	 * @param other a signature
+	 * @return true if the wildcard of this signature may be related to the formula with
+	 * the given signature, false otherwise
+	 */
+	boolean wildcardMatches(Signature other) {
+		return this.wildcard <= other.maximalNesting;
+	}
+
+	/**
+	 * Returns the signature of the given formula, given the signatures of its subformulas.
+	 *
+	 * @param formula a formula
+	 * @pre. the signatures of the subformulas of the given formula have been computed
+	 * @return the signature of the given formula
+	 */
+	static Signature of(Formula formula) {
+		long[] none = new long[0];
+		long[] keys = none;
+		long[] ceilings = none;
+		long[] floors = none;
+		int wildcard = NONE;
+		int minimalNesting = Integer.MAX_VALUE;
+		int maximalNesting = 0;
+		if (formula instanceof Label) {
+			return new Signature(new long[] { Formula.hash(((Label) formula).getLabel()) }, none, none, NONE, 0, 0);
+		} else if (formula instanceof True || formula instanceof False) {
+			return new Signature(none, none, none, 0, 0, 0);
+		} else if (formula instanceof Next) {
+			Signature signature = formula.getSubformula(0).getSignature();
+			keys = new long[signature.keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = signature.keys[i] + NEXT;
+			}
+			Arrays.sort(keys);
+			ceilings = increment(signature.ceilings);
+			floors = increment(signature.floors);
+			wildcard = signature.wildcard == NONE ? NONE : signature.wildcard + 1;
+			minimalNesting = signature.minimalNesting + 1;
+			maximalNesting = signature.maximalNesting + 1;
+		} else if (formula instanceof Plus || formula instanceof Minus || formula instanceof And || formula instanceof Or) {
+			for (int i = 0; i < formula.getArity(); i++) {
+				Signature signature = formula.getSubformula(i).getSignature();
+				keys = union(keys, signature.keys);
+				ceilings = union(ceilings, signature.ceilings);
+				floors = union(floors, signature.floors);
+				wildcard = Math.min(wildcard, signature.wildcard);
+				minimalNesting = Math.min(minimalNesting, signature.minimalNesting);
+				maximalNesting = Math.max(maximalNesting, signature.maximalNesting);
+			}
+		} else {
+			// the rules of other formulas are unknown
+			return ANY;
+		}
+		// formulas may be related by their bounds; see Formula.boundedBy
+		if (formula.upperBound < Shift.ONE) {
+			ceilings = union(ceilings, new long[] { 0 });
+			minimalNesting = 0;
+		}
+		if (formula.lowerBound > 0) {
+			floors = union(floors, new long[] { 0 });
+			minimalNesting = 0;
+		}
+		return new Signature(keys, ceilings, floors, wildcard, minimalNesting, maximalNesting);
+	}
+
+	/**
+	 * Returns the given nestings incremented by one.
+	 */
+	private static long[] increment(long[] nestings) {
+		long[] incremented = new long[nestings.length];
+		for (int i = 0; i < nestings.length; i++) {
+			incremented[i] = nestings[i] + 1;
+		}
+		return incremented;
+	}
+
+	/**
+	 * Returns the sorted union of the given sorted arrays.
+	 */
+	private static long[] union(long[] first, long[] second) {
+		long[] union = new long[first.length + second.length];
+		int i = 0;
+		int j = 0;
+		int length = 0;
+		while (i < first.length || j < second.length) {
+			long next;
+			if (j == second.length || (i < first.length && first[i] < second[j])) {
+				next = first[i++];
+			} else if (i == first.length || second[j] < first[i]) {
+				next = second[j++];
+			} else {
+				next = first[i++];
+				j++;
+			}
+			union[length++] = next;
+		}
+		return Arrays.copyOf(union, length);
+	}
+}
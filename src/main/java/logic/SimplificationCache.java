@@ -0,0 +1,224 @@
+/*
+ * Copyright (C)  2026  Franck van Breugel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package logic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache that maps formulas to their simplifications.  The cache is
+ * shared by all simplifications in the process so that a formula that occurs
+ * in several inputs is simplified only once.  The cache consists of a number
+ * of stripes, each of which evicts its least recently used formula when it is
+ * full.
+ *
+ * The cache is keyed by the 128-bit structural fingerprints of the formulas rather
+ * than by the formulas themselves, so that it does not keep the (typically large)
+ * unsimplified formulas reachable; only their simplifications are retained.  Two
+ * formulas are considered the same if their fingerprints are equal, which for
+ * syntactically different formulas happens with negligible probability.  This class
+ * is thread-safe.
+ *
+ * @author Franck van Breugel
+ */
+public final class SimplificationCache {
+	private SimplificationCache() {}
+
+	/**
+	 * Number of stripes of the cache.  Each stripe is locked separately.
+	 * Should be a power of two.
+	 */
+	private static final int STRIPES = 16;
+
+	/**
+	 * Default capacity of the cache.
+	 */
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * The key of a formula in the cache: its fingerprint.
+	 */
+	private static final class Fingerprint {
+		private final long high;
+		private final long low;
+
+		private Fingerprint(Formula formula) {
+			this.high = formula.fingerprintHigh;
+			this.low = formula.fingerprintLow;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) this.low;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint other = (Fingerprint) object;
+			return this.high == other.high && this.low == other.low;
+		}
+	}
+
+	/**
+	 * A stripe of the cache, which evicts its least recently used entry.
+	 */
+	private static final class Stripe extends LinkedHashMap<Fingerprint, Formula> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		private Stripe(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Fingerprint, Formula> eldest) {
+			return this.size() > this.capacity;
+		}
+	}
+
+	private static volatile Stripe[] stripes = createStripes(DEFAULT_CAPACITY);
+
+	private static final LongAdder HITS = new LongAdder();
+	private static final LongAdder MISSES = new LongAdder();
+
+	private static Stripe[] createStripes(int capacity) {
+		Stripe[] stripes = new Stripe[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(Math.max(1, capacity / STRIPES));
+		}
+		return stripes;
+	}
+
+	private static Stripe stripe(Formula formula) {
+		int hash = formula.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+	}
+
+	/**
+	 * Returns the cached simplification of the given formula.
+	 *
+	 * @param formula a formula
+	 * @pre. formula != null
+	 * @return the cached simplification of the given formula, or null if it is not cached
+	 */
+	static Formula lookup(Formula formula) {
+		Stripe stripe = stripe(formula);
+		Formula simplification;
+		synchronized (stripe) {
+			simplification = stripe.get(new Fingerprint(formula));
+		}
+		if (simplification == null) {
+			MISSES.increment();
+		} else {
+			HITS.increment();
+		}
+		return simplification;
+	}
+
+	/**
+	 * Caches the given simplification of the given formula.
+	 *
+	 * @param formula a formula
+	 * @param simplification the simplification of the formula
+	 * @pre. formula != null && simplification != null
+	 */
+	static void store(Formula formula, Formula simplification) {
+		Stripe stripe = stripe(formula);
+		synchronized (stripe) {
+			stripe.put(new Fingerprint(formula), simplification);
+		}
+	}
+
+	/**
+	 * Sets the capacity of the cache and clears the cache.
+	 *
+	 * @param capacity the maximum number of cached simplifications
+	 * @pre. capacity > 0
+	 */
+	public static void setCapacity(int capacity) {
+		stripes = createStripes(capacity);
+	}
+
+	/**
+	 * Returns the capacity of the cache.
+	 *
+	 * @return the maximum number of cached simplifications
+	 */
+	public static int getCapacity() {
+		return stripes[0].capacity * STRIPES;
+	}
+
+	/**
+	 * Returns the number of simplifications that are currently cached.
+	 *
+	 * @return the number of cached simplifications
+	 */
+	public static int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Clears the cache and resets the number of hits and misses.
+	 */
+	public static void clear() {
+		stripes = createStripes(getCapacity());
+		HITS.reset();
+		MISSES.reset();
+	}
+
+	/**
+	 * Returns the number of simplifications that were found in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public static long getHits() {
+		return HITS.sum();
+	}
+
+	/**
+	 * Returns the number of simplifications that were not found in the cache.
+	 *
+	 * @return the number of misses
+	 */
+	public static long getMisses() {
+		return MISSES.sum();
+	}
+
+	/**
+	 * Returns the fraction of lookups that were found in the cache.
+	 *
+	 * @return the hit rate, or 0 if there have been no lookups
+	 */
+	public static double getHitRate() {
+		long hits = HITS.sum();
+		long lookups = hits + MISSES.sum();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+}
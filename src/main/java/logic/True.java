@@ -24,18 +24,24 @@ package logic;
  * @author Franck van Breugel
  */
 public class True extends Formula {
+	/**
+	 * The kind of this formula.
+	 */
+	private static final long KIND = 1;
+
 	/**
 	 * Initializes this formula.
 	 */
 	public True() {
-		super(true);
+		super(true, KIND, 0, null, null);
+		this.lowerBound = Shift.ONE;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Formula simplify() {
+	protected Formula computeSimplification() {
 		return this;
 	}
 
@@ -43,45 +49,23 @@ public class True extends Formula {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean smallerOrEqual(Formula other) {
-		return other instanceof True;
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public boolean greaterOrEqual(Formula other) {
-		return true;
+	protected Goal smallerOrEqualGoal(Formula other) {
+		return Goal.of(other instanceof True);
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toLaTeX() {
-		return "\\mathrm{true}";
+	protected Goal greaterOrEqualGoal(Formula other) {
+		return Goal.TRUE;
 	}
 
-	/**
-	 * {@inheritDoc}
-	 */
-	public boolean equals(Object object) {
-		return object != null && object instanceof True;
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public int hashCode() {
-		return 0;
-	}
-	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String toString() {
-		return "true";
+	protected void appendPart(StringBuilder builder, int position, boolean latex) {
+		builder.append(latex ? "\\mathrm{true}" : "true");
 	}
 }